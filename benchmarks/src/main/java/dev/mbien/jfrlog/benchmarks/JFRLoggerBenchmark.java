@@ -0,0 +1,192 @@
+/*
+* MIT License
+* This benchmark is part of the JFRLog project.
+* https://github.com/mbien/JFRLog
+*/
+package dev.mbien.jfrlog.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Recording;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures every {@link Logger} entry point of the bridge with and without an
+ * active recording, and the logger lookup which depends on {@code loggerCache}.
+ *
+ * <p>The bridge reads its configuration once during class initialization,
+ * this is why every parameter combination runs in its own fork. Forking
+ * must not be disabled.</p>
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar JFRLoggerBenchmark -prof gc
+ * </pre>
+ *
+ * @author mbien
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JFRLoggerBenchmark {
+
+    @Param({"true", "false"})
+    public boolean recording;
+
+    @Param({"true", "false"})
+    public boolean recordOrigin;
+
+    @Param({"false", "true"})
+    public boolean loggerCache;
+
+    private Logger traceLogger;
+    private Logger debugLogger;
+    private Logger infoLogger;
+    private Logger warnLogger;
+    private Logger errorLogger;
+
+    private Recording rec;
+
+    private final Object arg1 = "hans";
+    private final Object arg2 = "wurst";
+    private final Object[] args = {"hans", "wurst", 42};
+    private final Throwable throwable = new IllegalStateException("don't panic");
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        // must happen before the first logger is requested
+        System.setProperty("jfrlog.recordOrigin", Boolean.toString(recordOrigin));
+        System.setProperty("jfrlog.loggerCache", Boolean.toString(loggerCache));
+        System.setProperty("jfrlog.bench.trace", "trace");
+        System.setProperty("jfrlog.bench.debug", "debug");
+        System.setProperty("jfrlog.bench.info", "info");
+        System.setProperty("jfrlog.bench.warn", "warn");
+        System.setProperty("jfrlog.bench.error", "error");
+
+        traceLogger = LoggerFactory.getLogger("bench.trace");
+        debugLogger = LoggerFactory.getLogger("bench.debug");
+        infoLogger  = LoggerFactory.getLogger("bench.info");
+        warnLogger  = LoggerFactory.getLogger("bench.warn");
+        errorLogger = LoggerFactory.getLogger("bench.error");
+
+        if (recording) {
+            // log.Trace stays disabled to cover the path where JFR filters the event
+            rec = new Recording();
+            rec.enable("log.Debug");
+            rec.enable("log.Info");
+            rec.enable("log.Warn");
+            rec.enable("log.Error");
+            rec.setToDisk(true);
+            rec.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (rec != null) {
+            rec.close();
+        }
+    }
+
+
+    @Benchmark
+    public void infoMessage() {
+        infoLogger.info("hello there");
+    }
+
+    @Benchmark
+    public void infoOneArg() {
+        infoLogger.info("My name is: {}", arg1);
+    }
+
+    @Benchmark
+    public void infoTwoArgs() {
+        infoLogger.info("My name is: {} {}", arg1, arg2);
+    }
+
+    @Benchmark
+    public void infoVarArgs() {
+        infoLogger.info("My name is: {} {} and I am {}", args);
+    }
+
+    @Benchmark
+    public void infoIndexedFormat() {
+        infoLogger.info("My name is: {0} {1}", arg1, arg2);
+    }
+
+    @Benchmark
+    public void infoPrintfFormat() {
+        infoLogger.info("My name is: %s %s", arg1, arg2);
+    }
+
+    @Benchmark
+    public void infoThrowable() {
+        infoLogger.info("oh dear", throwable);
+    }
+
+    @Benchmark
+    public void infoArgAndThrowable() {
+        infoLogger.info("oh dear {}", arg1, throwable);
+    }
+
+    @Benchmark
+    public void infoVarArgsAndThrowable() {
+        infoLogger.info("oh dear {} {}", arg1, arg2, throwable);
+    }
+
+
+    // disabled by the level of the logger
+
+    @Benchmark
+    public void disabledError() {
+        errorLogger.warn("My name is: {} {}", arg1, arg2);
+    }
+
+    @Benchmark
+    public void disabledWarn() {
+        warnLogger.info("My name is: {} {}", arg1, arg2);
+    }
+
+    @Benchmark
+    public void disabledInfo() {
+        infoLogger.debug("My name is: {} {}", arg1, arg2);
+    }
+
+    @Benchmark
+    public void disabledDebug() {
+        debugLogger.trace("My name is: {} {}", arg1, arg2);
+    }
+
+    // disabled by the recording settings (or the lack of a recording)
+    @Benchmark
+    public void disabledTrace() {
+        traceLogger.trace("My name is: {} {}", arg1, arg2);
+    }
+
+
+    // e.g. loggers requested per instance or per call instead of held in static fields
+    @Benchmark
+    public Logger getLogger() {
+        return LoggerFactory.getLogger("bench.info");
+    }
+
+}
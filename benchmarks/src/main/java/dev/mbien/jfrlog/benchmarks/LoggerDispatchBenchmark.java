@@ -0,0 +1,207 @@
+/*
+* MIT License
+* This benchmark is part of the JFRLog project.
+* https://github.com/mbien/JFRLog
+*/
+package dev.mbien.jfrlog.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Call sites which see loggers of all levels. Compares the former logger hierarchy
+ * (one class per level, replicated below) with a single logger class which checks
+ * a level bitmask, and with the loggers of the bridge itself.
+ *
+ * @author mbien
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggerDispatchBenchmark {
+
+    @Param({"true", "false"})
+    public boolean recording;
+
+    private final HierarchyLogger[] hierarchyLoggers = {
+        new HierarchyLogger(), new HError(), new HWarn(), new HInfo(), new HDebug(), new HTrace()
+    };
+
+    private final MaskLogger[] maskLoggers = {
+        new MaskLogger(0), new MaskLogger(0b10000), new MaskLogger(0b11000),
+        new MaskLogger(0b11100), new MaskLogger(0b11110), new MaskLogger(0b11111)
+    };
+
+    private Logger[] bridgeLoggers;
+
+    private Recording rec;
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        String[] levels = {"off", "error", "warn", "info", "debug", "trace"};
+        bridgeLoggers = new Logger[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            System.setProperty("jfrlog.dispatch." + levels[i], levels[i]);
+        }
+        for (int i = 0; i < levels.length; i++) {
+            bridgeLoggers[i] = LoggerFactory.getLogger("dispatch." + levels[i]);
+        }
+
+        if (recording) {
+            rec = new Recording();
+            rec.enable("bench.*");
+            rec.enable("log.*");
+            rec.setToDisk(true);
+            rec.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (rec != null) {
+            rec.close();
+        }
+    }
+
+    @Benchmark
+    public int hierarchy() {
+        int enabled = 0;
+        for (HierarchyLogger logger : hierarchyLoggers) {
+            logger.info("hello there");
+            if (logger.isDebugEnabled()) {
+                enabled++;
+            }
+        }
+        return enabled;
+    }
+
+    @Benchmark
+    public int bitmask() {
+        int enabled = 0;
+        for (MaskLogger logger : maskLoggers) {
+            logger.info("hello there");
+            if (logger.isDebugEnabled()) {
+                enabled++;
+            }
+        }
+        return enabled;
+    }
+
+    @Benchmark
+    public int bridge() {
+        int enabled = 0;
+        for (Logger logger : bridgeLoggers) {
+            logger.info("hello there");
+            if (logger.isDebugEnabled()) {
+                enabled++;
+            }
+        }
+        return enabled;
+    }
+
+
+    @Name("bench.Debug") @StackTrace(false) static final class DebugEvent extends Event { String message; }
+    @Name("bench.Info") @StackTrace(false)  static final class InfoEvent extends Event { String message; }
+    @Name("bench.Warn") @StackTrace(false)  static final class WarnEvent extends Event { String message; }
+    @Name("bench.Error") @StackTrace(false) static final class ErrorEvent extends Event { String message; }
+    @Name("bench.Trace") @StackTrace(false) static final class TraceEvent extends Event { String message; }
+
+    // replica of the former JFRLogger hierarchy: each subclass enables one more level
+    static class HierarchyLogger {
+        boolean isTraceEnabled() { return false; }
+        boolean isDebugEnabled() { return false; }
+        boolean isInfoEnabled()  { return false; }
+        boolean isWarnEnabled()  { return false; }
+        boolean isErrorEnabled() { return false; }
+
+        final void info(String msg) {
+            if (isInfoEnabled()) {
+                InfoEvent event = new InfoEvent();
+                event.message = msg;
+                event.commit();
+            }
+        }
+    }
+
+    static class HError extends HierarchyLogger {
+        private static final EventType EVENT_TYPE = EventType.getEventType(ErrorEvent.class);
+        @Override final boolean isErrorEnabled() { return EVENT_TYPE.isEnabled(); }
+    }
+
+    static class HWarn extends HError {
+        private static final EventType EVENT_TYPE = EventType.getEventType(WarnEvent.class);
+        @Override final boolean isWarnEnabled() { return EVENT_TYPE.isEnabled(); }
+    }
+
+    static class HInfo extends HWarn {
+        private static final EventType EVENT_TYPE = EventType.getEventType(InfoEvent.class);
+        @Override final boolean isInfoEnabled() { return EVENT_TYPE.isEnabled(); }
+    }
+
+    static class HDebug extends HInfo {
+        private static final EventType EVENT_TYPE = EventType.getEventType(DebugEvent.class);
+        @Override final boolean isDebugEnabled() { return EVENT_TYPE.isEnabled(); }
+    }
+
+    static final class HTrace extends HDebug {
+        private static final EventType EVENT_TYPE = EventType.getEventType(TraceEvent.class);
+        @Override boolean isTraceEnabled() { return EVENT_TYPE.isEnabled(); }
+    }
+
+    // single class, level bitmask (trace = 1 ... error = 16)
+    static final class MaskLogger {
+
+        private static final EventType TRACE_TYPE = EventType.getEventType(TraceEvent.class);
+        private static final EventType DEBUG_TYPE = EventType.getEventType(DebugEvent.class);
+        private static final EventType INFO_TYPE  = EventType.getEventType(InfoEvent.class);
+        private static final EventType WARN_TYPE  = EventType.getEventType(WarnEvent.class);
+        private static final EventType ERROR_TYPE = EventType.getEventType(ErrorEvent.class);
+
+        private final int levels;
+
+        MaskLogger(int levels) {
+            this.levels = levels;
+        }
+
+        boolean isTraceEnabled() { return (levels & 1)  != 0 && TRACE_TYPE.isEnabled(); }
+        boolean isDebugEnabled() { return (levels & 2)  != 0 && DEBUG_TYPE.isEnabled(); }
+        boolean isInfoEnabled()  { return (levels & 4)  != 0 && INFO_TYPE.isEnabled(); }
+        boolean isWarnEnabled()  { return (levels & 8)  != 0 && WARN_TYPE.isEnabled(); }
+        boolean isErrorEnabled() { return (levels & 16) != 0 && ERROR_TYPE.isEnabled(); }
+
+        void info(String msg) {
+            if (isInfoEnabled()) {
+                InfoEvent event = new InfoEvent();
+                event.message = msg;
+                event.commit();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+* MIT License
+* This benchmark is part of the JFRLog project.
+* https://github.com/mbien/JFRLog
+*/
+package dev.mbien.jfrlog.benchmarks;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Time to the first log call of a fresh JVM without an active recording, and the
+ * number of classes it loads, with and without jfrlog.lazyBootstrap.
+ *
+ * <p>Only the first call of each fork is measured, the fork count determines the
+ * number of samples.</p>
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar StartupBenchmark
+ * </pre>
+ *
+ * @author mbien
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    @Param({"false", "true"})
+    public boolean lazyBootstrap;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // must happen before the first logger is requested
+        System.setProperty("jfrlog.lazyBootstrap", Boolean.toString(lazyBootstrap));
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Classes {
+
+        private ClassLoadingMXBean bean;
+
+        public long classesLoaded;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            bean = ManagementFactory.getClassLoadingMXBean();
+            classesLoaded = -bean.getTotalLoadedClassCount();
+        }
+
+        void done() {
+            classesLoaded += bean.getTotalLoadedClassCount();
+        }
+    }
+
+    @Benchmark
+    public Logger firstLog(Classes classes) {
+        Logger logger = LoggerFactory.getLogger("startup");
+        logger.info("hello there");
+        classes.done();
+        return logger;
+    }
+
+}
@@ -52,10 +52,21 @@ import static java.util.stream.Collectors.joining;
  */
 public class JFRPrint {
     
-    private static final String VERSION = "0.1.5";
+    private static final String VERSION = "0.1.6";
     
     private static final String EVENT_NAME_TOKEN = "eventName";
     private static final String REMAINING_TOKEN = "...";
+    
+    private static final String MESSAGE_FIELD = "message";
+    private static final String PATTERN_FIELD = "pattern";
+    private static final String ORIGIN_FIELD = "origin";
+    private static final String ORIGIN_CLASS_FIELD = "originClass";
+    private static final String THROWABLE_FIELD = "throwable";
+    private static final String THROWABLE_ID_FIELD = "throwableId";
+    private static final String THROWABLE_DEFINITION_EVENT = "log.ThrowableDefinition";
+    
+    // JFRLog records each distinct throwable once per chunk if deduplication is enabled, log events reference them by id
+    private static final Map<Long, String> throwables = new HashMap<>();
 
     private static final Collector<CharSequence, ?, String> oneLineJoiner = joining(", ", "[", "]");
     private static final Collector<CharSequence, ?, String> multiLineJoiner = joining("\n    ", "    ", "");
@@ -139,11 +150,18 @@ public class JFRPrint {
             
             es.onEvent((event) -> {
                 
+                String eventName = event.getEventType().getName();
+                
+                if (eventName.equals(THROWABLE_DEFINITION_EVENT)) {
+                    throwables.put(event.getLong(THROWABLE_ID_FIELD), event.getString(THROWABLE_FIELD));
+                    if (!eventPatterns.containsKey(eventName)) { // print definitions only if explicitly requested
+                        return;
+                    }
+                }
+                
                 if (timestamp != null && event.getEndTime().isBefore(timestamp))
                     return;
                 
-                String eventName = event.getEventType().getName();
-                
                 EventPattern pattern = eventPatterns.get(eventName);
                 if (pattern == null) {
                     for (EventPattern wildcardPattern : eventPrefixPatterns) {
@@ -196,6 +214,12 @@ public class JFRPrint {
                     .filter((field) -> !format.placeholders.contains(field.getName())) // skip already used fields
                     .map((field) -> field.getName() + ":" + getFieldValue(event, field.getName(), true))
                     .collect(listJoiner);
+            } else if (fieldname.equals(MESSAGE_FIELD) && event.hasField(PATTERN_FIELD)) {
+                value = getLogMessage(event);
+            } else if (fieldname.equals(ORIGIN_FIELD) && event.hasField(ORIGIN_CLASS_FIELD) && event.getClass(ORIGIN_CLASS_FIELD) != null) {
+                value = event.getClass(ORIGIN_CLASS_FIELD).getName(); // same as the logger name
+            } else if (fieldname.equals(THROWABLE_FIELD) && event.hasField(THROWABLE_ID_FIELD) && event.getLong(THROWABLE_ID_FIELD) != 0) {
+                value = throwables.get(event.getLong(THROWABLE_ID_FIELD));
             } else if (event.hasField(fieldname)) {
                 value = getFieldValue(event, fieldname, false);
             }
@@ -208,6 +232,62 @@ public class JFRPrint {
         return sb.toString();
     }
 
+    // JFRLog events recorded with deferred formatting store the pattern and its arguments instead of the message
+    private static String getLogMessage(RecordedEvent event) {
+        
+        String message = event.getString(MESSAGE_FIELD);
+        String pattern = event.getString(PATTERN_FIELD);
+        
+        if (message != null || pattern == null) {
+            return message;
+        }
+        
+        List<String> args = new ArrayList<>();
+        int argTypes = event.hasField("argTypes") ? event.getInt("argTypes") : 0;
+        if (argTypes != 0) {
+            // typed arguments, 4 bits per argument: 1 string, 2 long, 3 double, 4 float, 5 boolean
+            for (int i = 0; i < 4 && ((argTypes >>> (i * 4)) & 0xF) != 0; i++) {
+                args.add(switch ((argTypes >>> (i * 4)) & 0xF) {
+                    case 2  -> Long.toString(event.getLong("longArg" + i));
+                    case 3  -> Double.toString(event.getDouble("doubleArg" + i));
+                    case 4  -> Float.toString((float) event.getDouble("doubleArg" + i));
+                    case 5  -> Boolean.toString(event.getLong("longArg" + i) != 0);
+                    default -> event.getString("arg" + i);
+                });
+            }
+        } else {
+            for (int i = 0; event.hasField("arg" + i) && event.getString("arg" + i) != null; i++) {
+                args.add(event.getString("arg" + i));
+            }
+        }
+        
+        // same rules as the slf4j MessageFormatter: {} placeholders, \{} escapes a placeholder
+        StringBuilder sb = new StringBuilder(pattern.length() + 64);
+        int i = 0;
+        for (int arg = 0; arg < args.size(); arg++) {
+            int j = pattern.indexOf("{}", i);
+            if (j == -1) {
+                break;
+            }
+            if (j > 0 && pattern.charAt(j-1) == '\\') {
+                if (j > 1 && pattern.charAt(j-2) == '\\') {
+                    sb.append(pattern, i, j-1).append(args.get(arg));
+                    i = j+2;
+                } else {
+                    sb.append(pattern, i, j-1).append('{');
+                    i = j+1;
+                    arg--;
+                }
+            } else {
+                sb.append(pattern, i, j).append(args.get(arg));
+                i = j+2;
+            }
+        }
+        sb.append(pattern, i, pattern.length());
+        
+        return sb.toString();
+    }
+
     private static Object getFieldValue(RecordedObject recorded, String fieldname, boolean oneLine) {
         
         Object value = recorded.getValue(fieldname);
@@ -0,0 +1,328 @@
+package dev.mbien.slf2jfr;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import jdk.jfr.EventType;
+import org.slf4j.helpers.Reporter;
+
+/**
+ * Keeps the last jfrlog.blackBox log events per level which were not recorded because
+ * their event type was disabled.
+ * <p>
+ * Each level has a preallocated ring of array slots, nothing is allocated per event.
+ * Slots are guarded by a sequence number (seqlock): writers claim a slot by making its
+ * sequence odd and drop the event if the slot is busy, readers skip slots which changed
+ * while they were read.
+ * <p>
+ * While the black box is enabled every level is enabled, debug and trace calls create their
+ * events even if nothing records them. Messages of such events are kept unformatted, the pattern,
+ * arguments and throwable are referenced by the slot and formatted when the black box is dumped.
+ * Arguments are therefore retained until the slot is overwritten and mutable arguments show their
+ * state at dump time.
+ * <p>
+ * The black box is dumped when an error is logged or via {@link JFRLoggerFactory#dumpBlackBox()},
+ * as {@link BlackBoxEvent}s or appended to the jfrlog.blackBoxDump file. Each event is dumped once.
+ * Events stay in the black box while no recording enables log.BlackBox, the file is written
+ * by a background thread.
+ *
+ * @author mbien
+ */
+final class BlackBox {
+
+    private static final int SIZE = ceilPow2(Settings.getInt("blackBox", 0));
+    static final boolean ENABLED = SIZE > 0;
+
+    private static final String DUMP_FILE = Settings.getString("blackBoxDump", null);
+
+    private static final int MAX_MESSAGE = Settings.getInt("maxMessageLength", 0);
+
+    private static final String[] LEVEL_NAMES = {"TRACE", "DEBUG", "INFO", "WARN", "ERROR"};
+
+    private static final Ring[] rings;
+
+    // single thread, dumps are appended in order
+    private static final ExecutorService fileWriter;
+
+    static {
+        if(ENABLED) {
+            rings = new Ring[LEVEL_NAMES.length];
+            for (int i = 0; i < rings.length; i++) {
+                rings[i] = new Ring(SIZE, LEVEL_NAMES[i]);
+            }
+        }else{
+            rings = null;
+        }
+        if(ENABLED && DUMP_FILE != null) {
+            fileWriter = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "JFRLog black box writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // short lived processes should not lose the last dump
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                fileWriter.shutdown();
+                try{
+                    fileWriter.awaitTermination(1, TimeUnit.SECONDS);
+                }catch(InterruptedException ignored) {}
+            }, "JFRLog black box shutdown"));
+        }else{
+            fileWriter = null;
+        }
+    }
+
+    private BlackBox() {}
+
+    private static int ceilPow2(int size) {
+        return size <= 0 ? 0 : Integer.highestOneBit(Math.min(size, 1 << 20) * 2 - 1);
+    }
+
+    /**
+     * Keeps the event which was not recorded.
+     */
+    static void record(JFRLogEvent event) {
+        rings[Integer.numberOfTrailingZeros(event.level())].write(event);
+    }
+
+    /**
+     * Dumps all events which haven't been dumped yet, returns the number of dumped events.
+     * Returns 0 without dumping if there is no recording which enables log.BlackBox
+     * (and no dump file is configured).
+     */
+    static int dump() {
+        if(!ENABLED || !hasPending() || (DUMP_FILE == null && !Type.BLACK_BOX.isEnabled())) {
+            return 0;
+        }
+        return drain();
+    }
+
+    // lock-free check, logging an error is the common case and usually finds nothing to dump
+    private static boolean hasPending() {
+        for (Ring ring : rings) {
+            if(ring.hasPending()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static synchronized int drain() {
+
+        List<Entry> entries = new ArrayList<>();
+        for (Ring ring : rings) {
+            ring.drainTo(entries);
+        }
+        if(entries.isEmpty()) {
+            return 0;
+        }
+        entries.sort(Comparator.comparingLong(e -> e.time));
+
+        if(DUMP_FILE == null) {
+            for (Entry entry : entries) {
+                entry.commit();
+            }
+        }else{
+            fileWriter.execute(() -> write(entries));
+        }
+        return entries.size();
+    }
+
+    private static void write(List<Entry> entries) {
+        try(Writer writer = Files.newBufferedWriter(Paths.get(DUMP_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (Entry entry : entries) {
+                entry.write(writer);
+            }
+        }catch(IOException ex) {
+            Reporter.error("JFRLog: failed to dump black box to "+DUMP_FILE, ex);
+        }
+    }
+
+    // resolving the type registers it, deferred until the first dump (see jfrlog.lazyBootstrap)
+    private static final class Type {
+        private static final EventType BLACK_BOX = EventType.getEventType(BlackBoxEvent.class);
+    }
+
+
+    private static final class Ring {
+
+        private final String level;
+        private final int mask;
+        private final AtomicLong next = new AtomicLong();
+        private volatile long dumped; // positions below were dumped, written while holding BlackBox.class
+
+        // seqlock per slot, odd while written
+        private final AtomicLongArray sequences;
+
+        private final AtomicLongArray positions;
+        private final AtomicLongArray times;
+        private final AtomicReferenceArray<String> threads;
+        private final AtomicReferenceArray<String> origins;
+        private final AtomicReferenceArray<String> messages; // the pattern if the arity is not 0
+        private final AtomicIntegerArray arities;
+        private final AtomicReferenceArray<Object> args1;
+        private final AtomicReferenceArray<Object> args2;
+        private final AtomicReferenceArray<String> markers;
+        private final AtomicReferenceArray<String> mdcs;
+        private final AtomicReferenceArray<Object> throwables; // printed or raw
+
+        private Ring(int size, String level) {
+            this.level = level;
+            this.mask = size-1;
+            sequences = new AtomicLongArray(size);
+            positions = new AtomicLongArray(size);
+            times = new AtomicLongArray(size);
+            threads = new AtomicReferenceArray<>(size);
+            origins = new AtomicReferenceArray<>(size);
+            messages = new AtomicReferenceArray<>(size);
+            arities = new AtomicIntegerArray(size);
+            args1 = new AtomicReferenceArray<>(size);
+            args2 = new AtomicReferenceArray<>(size);
+            markers = new AtomicReferenceArray<>(size);
+            mdcs = new AtomicReferenceArray<>(size);
+            throwables = new AtomicReferenceArray<>(size);
+        }
+
+        private void write(JFRLogEvent event) {
+
+            long pos = next.getAndIncrement();
+            int slot = (int) pos & mask;
+
+            long seq = sequences.get(slot);
+            if((seq & 1) != 0 || !sequences.compareAndSet(slot, seq, seq+1)) {
+                return; // wrapped around while another thread writes this slot
+            }
+            positions.lazySet(slot, pos);
+            times.lazySet(slot, System.currentTimeMillis());
+            threads.lazySet(slot, Thread.currentThread().getName());
+            origins.lazySet(slot, event.originName());
+            if(event.rawFormat != null) {
+                messages.lazySet(slot, event.rawFormat);
+                arities.lazySet(slot, event.rawArity);
+            }else{
+                messages.lazySet(slot, event.formatMessage());
+                arities.lazySet(slot, 0);
+            }
+            args1.lazySet(slot, event.rawArg1);
+            args2.lazySet(slot, event.rawArg2);
+            markers.lazySet(slot, event.marker);
+            mdcs.lazySet(slot, event.mdc);
+            throwables.lazySet(slot, event.rawThrowable != null ? event.rawThrowable : event.throwable);
+            sequences.set(slot, seq+2);
+        }
+
+        private boolean hasPending() {
+            return next.get() > dumped;
+        }
+
+        private void drainTo(List<Entry> entries) {
+
+            long end = next.get();
+            for (long pos = Math.max(dumped, end - mask - 1); pos < end; pos++) {
+                int slot = (int) pos & mask;
+                long seq = sequences.get(slot);
+                if(seq == 0 || (seq & 1) != 0) {
+                    continue;
+                }
+                long position = positions.get(slot);
+                long time = times.get(slot);
+                String thread = threads.get(slot);
+                String origin = origins.get(slot);
+                String message = messages.get(slot);
+                int arity = arities.get(slot);
+                Object arg1 = args1.get(slot);
+                Object arg2 = args2.get(slot);
+                String marker = markers.get(slot);
+                String mdc = mdcs.get(slot);
+                Object throwable = throwables.get(slot);
+                if(sequences.get(slot) == seq && position >= dumped && position < end) {
+                    if(arity != 0) {
+                        message = limit(JFRLogEvent.formatRaw(message, arity, arg1, arg2));
+                    }
+                    if(throwable instanceof Throwable) {
+                        throwable = JFRLogger.throwableToString((Throwable) throwable);
+                    }
+                    entries.add(new Entry(level, position, time, thread, origin, message, marker, mdc, (String) throwable));
+                }
+            }
+            dumped = end;
+        }
+
+        private static String limit(String message) {
+            return MAX_MESSAGE > 0 && message.length() > MAX_MESSAGE ? message.substring(0, MAX_MESSAGE) : message;
+        }
+    }
+
+    private static final class Entry {
+
+        private final String level;
+        private final long pos;
+        private final long time;
+        private final String thread;
+        private final String origin;
+        private final String message;
+        private final String marker;
+        private final String mdc;
+        private final String throwable;
+
+        private Entry(String level, long pos, long time, String thread, String origin,
+                String message, String marker, String mdc, String throwable) {
+            this.level = level;
+            this.pos = pos;
+            this.time = time;
+            this.thread = thread;
+            this.origin = origin;
+            this.message = message;
+            this.marker = marker;
+            this.mdc = mdc;
+            this.throwable = throwable;
+        }
+
+        private void commit() {
+            BlackBoxEvent event = new BlackBoxEvent();
+            event.level = level;
+            event.time = time;
+            event.thread = thread;
+            event.origin = origin;
+            event.message = message;
+            event.marker = marker;
+            event.mdc = mdc;
+            event.throwable = throwable;
+            event.commit();
+        }
+
+        private void write(Writer writer) throws IOException {
+            writer.append(Instant.ofEpochMilli(time).toString()).append(' ').append(level)
+                  .append(" [").append(thread).append("] ");
+            if(origin != null) {
+                writer.append(origin).append(": ");
+            }
+            writer.append(String.valueOf(message));
+            if(marker != null) {
+                writer.append(" marker=").append(marker);
+            }
+            if(mdc != null) {
+                writer.append(" {").append(mdc).append('}');
+            }
+            writer.append('\n');
+            if(throwable != null) {
+                writer.append(throwable);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package dev.mbien.slf2jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timestamp;
+
+/**
+ * A log event which was kept in the black box (jfrlog.blackBox) and dumped later,
+ * e.g. because an error was logged.
+ * 
+ * @author mbien
+ */
+@Name("log.BlackBox")
+@Label("Black box log event")
+@Description("Log event which was not recorded when it was logged, dumped from the black box.")
+@Category("JFR Logger")
+@StackTrace(false)
+final class BlackBoxEvent extends Event {
+    
+    @Label("Time of the log call")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    long time;
+    
+    @Label("Level")
+    String level;
+    
+    @Label("Thread name")
+    String thread;
+    
+    @Label("Source of the log message")
+    String origin;
+    
+    @Label("Log Message")
+    String message;
+    
+    @Label("Marker")
+    String marker;
+    
+    @Label("Mapped Diagnostic Context")
+    String mdc;
+    
+    @Label("A Throwable printed as String or null")
+    String throwable;
+    
+}
@@ -0,0 +1,66 @@
+package dev.mbien.slf2jfr;
+
+/**
+ * Finds the caller of the logger (jfrlog.callerLocation) and the class of
+ * a logger name (jfrlog.originClass).
+ * <p>
+ * Java 8 version, fills in the whole stack trace. The multi-release jar contains
+ * a StackWalker based version for Java 9+ (src/main/java9).
+ *
+ * @author mbien
+ */
+final class CallerLocator {
+
+    static final int MAX_FRAMES = 16;
+
+    private CallerLocator() {}
+
+    /**
+     * Sets the caller fields of the event to the first frame outside of the bridge.
+     */
+    static void locate(JFRLogEvent event) {
+        StackTraceElement[] stack = new Throwable().getStackTrace();
+        int frames = Math.min(stack.length, MAX_FRAMES);
+        for (int i = 0; i < frames; i++) {
+            StackTraceElement frame = stack[i];
+            if(!isBridge(frame.getClassName())) {
+                event.callerClass = frame.getClassName();
+                event.callerMethod = frame.getMethodName();
+                event.callerLine = frame.getLineNumber();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the class of the given logger name (jfrlog.originClass) as seen by the
+     * context class loader, null if there is none.
+     */
+    static Class<?> findClass(String name) {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return forName(name, loader != null ? loader : CallerLocator.class.getClassLoader());
+    }
+
+    static boolean isBridge(String className) {
+        return className.startsWith("org.slf4j.")
+            || className.startsWith("java.util.logging.")
+            || className.startsWith("java.lang.System$Logger")
+            || className.startsWith("jdk.internal.logger.")
+            || className.startsWith("sun.util.logging.")
+            || className.equals("dev.mbien.slf2jfr.JFRLogger")
+            || className.equals("dev.mbien.slf2jfr.JFRLogHandler")
+            || className.startsWith("dev.mbien.slf2jfr.JFRLoggerFinder")
+            || className.equals("dev.mbien.slf2jfr.JFRLoggerFactory")
+            || className.equals("dev.mbien.slf2jfr.CallerLocator");
+    }
+
+    // loads without initializing, null if the name is not a class name
+    private static Class<?> forName(String name, ClassLoader loader) {
+        try{
+            return Class.forName(name, false, loader);
+        }catch(ClassNotFoundException | LinkageError ex) {
+            return null;
+        }
+    }
+
+}
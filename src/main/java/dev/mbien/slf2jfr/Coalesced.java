@@ -0,0 +1,46 @@
+package dev.mbien.slf2jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timestamp;
+
+/**
+ * JFR event summarizing repeats of a log message within the jfrlog.coalesceWindow.
+ * Only the first occurrence is recorded as log event.
+ * 
+ * @author mbien
+ */
+@Name("log.Coalesced")
+@Label("Coalesced log events")
+@Description("Log events with the same origin, level and message which were recorded only once.")
+@Category("JFR Logger")
+@StackTrace(false)
+@Period("1 s")
+final class Coalesced extends Event {
+    
+    @Label("Source of the log message")
+    String origin;
+    
+    @Label("Name of the log event")
+    String level;
+    
+    @Label("Log Message")
+    String message;
+    
+    @Label("Occurrences within the window, including the recorded event")
+    long count;
+    
+    @Label("First occurrence")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    long firstTime;
+    
+    @Label("Last occurrence")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    long lastTime;
+    
+}
@@ -0,0 +1,162 @@
+package dev.mbien.slf2jfr;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Name;
+
+/**
+ * Collapses repeats of the same origin, level and message text within a time window
+ * (jfrlog.coalesceWindow in ms). The first occurrence is recorded as usual, repeats are
+ * counted and reported as {@link Coalesced} event when the window closes. Deferred messages
+ * are compared by pattern and arguments, they aren't formatted for this.
+ * <p>
+ * Windows are kept in a direct-mapped table, a colliding message closes the window early.
+ * Windows which are not followed by another occurrence are closed by the periodic
+ * {@link Coalesced} event hook. Nothing is coalesced while no recording enables
+ * {@link Coalesced}, the repeats would be lost otherwise.
+ *
+ * @author mbien
+ */
+final class Coalescer {
+
+    private static final int TABLE_SIZE = 1024; // power of two
+
+    static final long WINDOW = Settings.getInt("coalesceWindow", 0);
+
+    private static final AtomicReferenceArray<Window> table = new AtomicReferenceArray<>(TABLE_SIZE);
+
+    private static final EventType TYPE;
+
+    static {
+        if(WINDOW > 0) {
+            FlightRecorder.addPeriodicEvent(Coalesced.class, Coalescer::flushExpired);
+            TYPE = EventType.getEventType(Coalesced.class);
+        }else{
+            TYPE = null;
+        }
+    }
+
+    private Coalescer() {}
+
+    static boolean isEnabled() {
+        return WINDOW > 0;
+    }
+
+    /**
+     * Returns true if the event is a repeat within the window and should not be recorded.
+     * Called with the message set, right before the event is committed. Events which are
+     * passed to the sinks instead must not be coalesced.
+     */
+    static boolean coalesce(JFRLogEvent event, EventCategory category) {
+
+        if(!TYPE.isEnabled()) {
+            return false;
+        }
+
+        String origin = event.originName();
+        Class<?> type = event.getClass();
+        int hash = ((Objects.hashCode(origin) * 31 + type.hashCode()) * 31 + Objects.hashCode(category)) * 31 + messageHash(event);
+        int slot = (hash ^ (hash >>> 16)) & (TABLE_SIZE-1);
+
+        long now = System.currentTimeMillis();
+        Window window = table.get(slot);
+
+        if(window != null && window.matches(hash, origin, category, event) && now - window.firstTime < WINDOW) {
+            if(window.count.incrementAndGet() > 0) {
+                window.lastTime = now;
+                return true;
+            }
+            // closed concurrently, start a new window
+        }
+
+        Window opened = new Window(hash, origin, category, event, now);
+        if(table.compareAndSet(slot, window, opened) && window != null) {
+            window.close();
+        }
+        return false;
+    }
+
+    // hash of the message text, deferred messages hash the pattern and the arguments
+    private static int messageHash(JFRLogEvent e) {
+        if(e.pattern == null) {
+            return Objects.hashCode(e.message);
+        }
+        int hash = e.pattern.hashCode();
+        hash = 31 * hash + Objects.hashCode(e.arg0);
+        hash = 31 * hash + Objects.hashCode(e.arg1);
+        hash = 31 * hash + Objects.hashCode(e.arg2);
+        hash = 31 * hash + Objects.hashCode(e.arg3);
+        hash = 31 * hash + e.argTypes;
+        hash = 31 * hash + Long.hashCode(e.longArg0 ^ e.longArg1 ^ e.longArg2 ^ e.longArg3);
+        hash = 31 * hash + Double.hashCode(e.doubleArg0 + e.doubleArg1 + e.doubleArg2 + e.doubleArg3);
+        return hash;
+    }
+    
+    // compares the message text, deferred messages are not formatted for this
+    private static boolean hasSameMessage(JFRLogEvent e, JFRLogEvent other) {
+        return Objects.equals(e.message, other.message) && Objects.equals(e.pattern, other.pattern)
+            && Objects.equals(e.arg0, other.arg0) && Objects.equals(e.arg1, other.arg1)
+            && Objects.equals(e.arg2, other.arg2) && Objects.equals(e.arg3, other.arg3)
+            && e.argTypes == other.argTypes
+            && e.longArg0 == other.longArg0 && e.longArg1 == other.longArg1
+            && e.longArg2 == other.longArg2 && e.longArg3 == other.longArg3
+            && Double.compare(e.doubleArg0, other.doubleArg0) == 0 && Double.compare(e.doubleArg1, other.doubleArg1) == 0
+            && Double.compare(e.doubleArg2, other.doubleArg2) == 0 && Double.compare(e.doubleArg3, other.doubleArg3) == 0;
+    }
+
+    private static void flushExpired() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            Window window = table.get(i);
+            if(window != null && now - window.firstTime >= WINDOW && table.compareAndSet(i, window, null)) {
+                window.close();
+            }
+        }
+    }
+
+
+    private static final class Window {
+
+        private final int hash;
+        private final String origin;
+        private final EventCategory category; // null for the static log event types
+        private final JFRLogEvent first; // only the message fields are compared
+        private final long firstTime;
+
+        private volatile long lastTime;
+        private final AtomicLong count = new AtomicLong(1); // negative if closed
+
+        private Window(int hash, String origin, EventCategory category, JFRLogEvent first, long time) {
+            this.hash = hash;
+            this.origin = origin;
+            this.category = category;
+            this.first = first;
+            this.firstTime = time;
+            this.lastTime = time;
+        }
+
+        private boolean matches(int hash, String origin, EventCategory category, JFRLogEvent event) {
+            return this.hash == hash && first.getClass() == event.getClass() && this.category == category
+                    && Objects.equals(this.origin, origin) && hasSameMessage(first, event);
+        }
+
+        private void close() {
+            long repeats = count.getAndSet(Long.MIN_VALUE);
+            if(repeats > 1) {
+                Coalesced event = new Coalesced();
+                event.origin = origin;
+                event.level = category != null ? category.typeName(first.level())
+                                               : first.getClass().getAnnotation(Name.class).value();
+                event.message = first.formatMessage();
+                event.count = repeats;
+                event.firstTime = firstTime;
+                event.lastTime = lastTime;
+                event.commit();
+            }
+        }
+    }
+
+}
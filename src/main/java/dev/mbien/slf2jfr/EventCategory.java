@@ -0,0 +1,199 @@
+package dev.mbien.slf2jfr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.AnnotationElement;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventFactory;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.ValueDescriptor;
+import org.slf4j.helpers.Reporter;
+
+/**
+ * Log event types of a logger name prefix (jfrlog.eventCategories), e.g. log.Info.com.acme.db.
+ * <p>
+ * The types are generated at startup with {@link EventFactory} and have the same fields
+ * as {@link JFRLogEvent}. Loggers of the prefix check the enablement of their own types,
+ * which makes it possible to switch subsystems on and off in .jfc files like any other event.
+ *
+ * @author mbien
+ */
+final class EventCategory {
+
+    // order of the fields of the generated types, see commit()
+    private static final String[] FIELDS = {
+        "message", "origin", "originClass", "marker", "callerClass", "callerMethod", "callerLine", "sampleRate", "truncated", "mdc",
+        "throwable", "throwableId", "pattern", "arg0", "arg1", "arg2", "arg3",
+        "argTypes", "longArg0", "longArg1", "longArg2", "longArg3",
+        "doubleArg0", "doubleArg1", "doubleArg2", "doubleArg3",
+        "key0", "value0", "key1", "value1", "key2", "value2", "key3", "value3"
+    };
+
+    // indexed by the trailing zeros of the level bit
+    private static final String[] LEVEL_NAMES = {"Trace", "Debug", "Info", "Warn", "Error"};
+
+    private final EventFactory[] factories = new EventFactory[LEVEL_NAMES.length];
+    private final EventType[] types = new EventType[LEVEL_NAMES.length];
+
+    private EventCategory(String prefix, List<ValueDescriptor> fields) {
+        for (int i = 0; i < LEVEL_NAMES.length; i++) {
+            List<AnnotationElement> annotations = Arrays.asList(
+                    new AnnotationElement(Name.class, "log." + LEVEL_NAMES[i] + "." + prefix),
+                    new AnnotationElement(Label.class, LEVEL_NAMES[i] + " log event (" + prefix + ")"),
+                    new AnnotationElement(Description.class, "Someone in " + prefix + " logged something."),
+                    new AnnotationElement(Category.class, new String[] {"JFR Logger"}),
+                    new AnnotationElement(StackTrace.class, false));
+            factories[i] = EventFactory.create(annotations, fields);
+            types[i] = factories[i].getEventType();
+        }
+    }
+
+    /**
+     * Parses the comma separated jfrlog.eventCategories prefixes and registers their
+     * event types, returns null if there are none.
+     */
+    static NameTrie<EventCategory> fromSettings() {
+
+        String value = Settings.getString("eventCategories", "");
+        if(Settings.isBlank(value)) {
+            return null;
+        }
+
+        List<ValueDescriptor> fields = fields();
+
+        Map<String, EventCategory> categories = new HashMap<>();
+        for (String prefix : value.split(",")) {
+            prefix = prefix.trim();
+            if(prefix.isEmpty() || categories.containsKey(prefix)) {
+                continue;
+            }
+            try{
+                categories.put(prefix, new EventCategory(prefix, fields));
+            }catch(IllegalArgumentException ex) {
+                Reporter.error("JFRLog: ignoring invalid event category "+prefix, ex);
+            }
+        }
+        return categories.isEmpty() ? null : new NameTrie<>(categories);
+    }
+
+    // copies the field descriptors of the static log events
+    private static List<ValueDescriptor> fields() {
+        EventType base = EventType.getEventType(JFRLogEvent.Info.class);
+        List<ValueDescriptor> fields = new ArrayList<>(FIELDS.length);
+        for (String name : FIELDS) {
+            ValueDescriptor field = base.getField(name);
+            fields.add(new ValueDescriptor(typeOf(field.getTypeName()), name, field.getAnnotationElements()));
+        }
+        return fields;
+    }
+
+    private static Class<?> typeOf(String typeName) {
+        switch(typeName) {
+            case "boolean":         return boolean.class;
+            case "int":             return int.class;
+            case "long":            return long.class;
+            case "double":          return double.class;
+            case "java.lang.Class": return Class.class;
+            default:                return String.class;
+        }
+    }
+
+    boolean isEnabled(int level) {
+        return types[Integer.numberOfTrailingZeros(level)].isEnabled();
+    }
+
+    String typeName(int level) {
+        return types[Integer.numberOfTrailingZeros(level)].getName();
+    }
+
+    /**
+     * Commits the fields of the event as event of this category, returns false if
+     * the type of the level is disabled.
+     */
+    boolean commit(JFRLogEvent event) {
+
+        int index = Integer.numberOfTrailingZeros(event.level());
+        if(!types[index].isEnabled()) {
+            return false;
+        }
+
+        // generated events are set reflectively (boxed), unset fields keep their defaults
+        Event e = factories[index].newEvent();
+        int i = 0;
+        set(e, i++, event.message);
+        set(e, i++, event.origin);
+        set(e, i++, event.originClass);
+        set(e, i++, event.marker);
+        set(e, i++, event.callerClass);
+        set(e, i++, event.callerMethod);
+        set(e, i++, event.callerLine);
+        set(e, i++, event.sampleRate);
+        set(e, i++, event.truncated);
+        set(e, i++, event.mdc);
+        set(e, i++, event.throwable);
+        set(e, i++, event.throwableId);
+        set(e, i++, event.pattern);
+        set(e, i++, event.arg0);
+        set(e, i++, event.arg1);
+        set(e, i++, event.arg2);
+        set(e, i++, event.arg3);
+        set(e, i++, event.argTypes);
+        set(e, i++, event.longArg0);
+        set(e, i++, event.longArg1);
+        set(e, i++, event.longArg2);
+        set(e, i++, event.longArg3);
+        set(e, i++, event.doubleArg0);
+        set(e, i++, event.doubleArg1);
+        set(e, i++, event.doubleArg2);
+        set(e, i++, event.doubleArg3);
+        set(e, i++, event.key0);
+        set(e, i++, event.value0);
+        set(e, i++, event.key1);
+        set(e, i++, event.value1);
+        set(e, i++, event.key2);
+        set(e, i++, event.value2);
+        set(e, i++, event.key3);
+        set(e, i++, event.value3);
+        e.commit();
+        return true;
+    }
+
+    private static void set(Event e, int index, Object value) {
+        if(value != null) {
+            e.set(index, value);
+        }
+    }
+
+    private static void set(Event e, int index, int value) {
+        if(value != 0) {
+            e.set(index, value);
+        }
+    }
+
+    private static void set(Event e, int index, long value) {
+        if(value != 0) {
+            e.set(index, value);
+        }
+    }
+
+    private static void set(Event e, int index, double value) {
+        if(value != 0) {
+            e.set(index, value);
+        }
+    }
+
+    private static void set(Event e, int index, boolean value) {
+        if(value) {
+            e.set(index, value);
+        }
+    }
+
+}
@@ -0,0 +1,275 @@
+package dev.mbien.slf2jfr;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.helpers.Reporter;
+
+/**
+ * Writes log events as text while no log event type is enabled in any recording
+ * (jfrlog.fallback=stdout|stderr|path).
+ * <p>
+ * Logging threads only put the event into a lock-free ring and never block, the event is
+ * dropped if the ring is full. A single writer thread formats the lines and writes them in
+ * batches through a NIO channel. The sink switches off as soon as a recording enables a log
+ * event type and on again when it stops. Log event types enabled by changing the settings of
+ * a running recording are noticed when the next event is offered.
+ *
+ * @author mbien
+ */
+final class FallbackSink implements Runnable {
+
+    private static final int CAPACITY = 8192;     // power of two
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String TARGET = Settings.getString("fallback", null);
+    static final boolean ENABLED = TARGET != null;
+
+    // only resolved if enabled, resolving registers the event types (see jfrlog.lazyBootstrap)
+    private static final EventType[] TYPES = !ENABLED ? null : new EventType[] {
+        EventType.getEventType(JFRLogEvent.Trace.class),
+        EventType.getEventType(JFRLogEvent.Debug.class),
+        EventType.getEventType(JFRLogEvent.Info.class),
+        EventType.getEventType(JFRLogEvent.Warn.class),
+        EventType.getEventType(JFRLogEvent.Error.class)
+    };
+
+    private static final MpscRing<Entry> ring = new MpscRing<>(CAPACITY);
+    private static final LongAdder dropped = new LongAdder();
+
+    private static volatile boolean active;
+    private static volatile boolean shutdown;
+    private static volatile Thread waiting; // the writer while it is parked without work
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    static {
+        if(ENABLED) {
+            start();
+        }
+    }
+
+    private FallbackSink(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * True while the fallback sink records log events instead of JFR.
+     */
+    static boolean isActive() {
+        return ENABLED && active;
+    }
+
+    /**
+     * Queues the event for the writer thread, drops it if the queue is full.
+     */
+    static void offer(JFRLogEvent event) {
+        if(!ring.offer(new Entry(event, System.currentTimeMillis(), Thread.currentThread().getName()))) {
+            dropped.increment();
+        }
+        Thread writer = waiting;
+        if(writer != null) {
+            waiting = null;
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private static void start() {
+
+        WritableByteChannel channel;
+        try{
+            if("stdout".equalsIgnoreCase(TARGET)) {
+                channel = Channels.newChannel(new FileOutputStream(FileDescriptor.out));
+            }else if("stderr".equalsIgnoreCase(TARGET)) {
+                channel = Channels.newChannel(new FileOutputStream(FileDescriptor.err));
+            }else{
+                channel = FileChannel.open(Paths.get(TARGET),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+        }catch(IOException | RuntimeException ex) {
+            Reporter.error("JFRLog: can't open fallback sink "+TARGET, ex);
+            return;
+        }
+
+        Thread thread = new Thread(new FallbackSink(channel), "JFRLog fallback writer");
+        thread.setDaemon(true);
+
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override public void recordingStateChanged(Recording recording) {
+                // event types might not be enabled yet when the listener is notified
+                if(recording.getState() == RecordingState.RUNNING && enablesLogEvents(recording)) {
+                    active = false;
+                }else{
+                    update();
+                }
+                // the writer parks while the sink is inactive
+                LockSupport.unpark(thread);
+            }
+        });
+        update();
+
+        thread.start();
+
+        // short lived processes should not lose the last lines
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            shutdown = true;
+            LockSupport.unpark(thread);
+            try{
+                thread.join(1000);
+            }catch(InterruptedException ignored) {}
+        }, "JFRLog fallback shutdown"));
+    }
+
+    private static boolean enablesLogEvents(Recording recording) {
+        for (EventType type : TYPES) {
+            if("true".equals(recording.getSettings().get(type.getName()+"#enabled"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void update() {
+        for (EventType type : TYPES) {
+            if(type.isEnabled()) {
+                active = false;
+                return;
+            }
+        }
+        active = true;
+    }
+
+    @Override
+    public void run() {
+        try{
+            while(true) {
+                boolean stop = shutdown;
+                int written = drain();
+                if(written == 0) {
+                    flush();
+                    if(stop) {
+                        return;
+                    }
+                    // until an event is offered or the listener or the shutdown hook unparks,
+                    // events offered before the writer registered itself are drained first
+                    waiting = Thread.currentThread();
+                    if(drain() == 0 && !shutdown) {
+                        LockSupport.park(this);
+                    }
+                    waiting = null;
+                    if(active) {
+                        update(); // the listener doesn't see setting changes of running recordings
+                    }
+                }
+            }
+        }catch(IOException ex) {
+            active = false;
+            Reporter.error("JFRLog: fallback sink failed, disabling it", ex);
+        }
+    }
+
+    private int drain() throws IOException {
+
+        int count = 0;
+        Entry entry;
+        while(count < CAPACITY && (entry = ring.poll()) != null) {
+            write(format(entry));
+            count++;
+        }
+
+        long lost = dropped.sumThenReset();
+        if(lost > 0) {
+            write("[JFRLog] "+lost+" log messages dropped, fallback queue full\n");
+        }
+        return count;
+    }
+
+    private static String format(Entry entry) {
+
+        JFRLogEvent event = entry.event;
+
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(Instant.ofEpochMilli(entry.time)).append(' ')
+          .append(level(event)).append(" [").append(entry.thread).append("] ");
+        String origin = event.originName();
+        if(origin != null) {
+            sb.append(origin).append(": ");
+        }
+        sb.append(event.formatMessage());
+        if(event.marker != null) {
+            sb.append(" marker=").append(event.marker);
+        }
+        if(event.mdc != null) {
+            sb.append(" {").append(event.mdc).append('}');
+        }
+        sb.append('\n');
+        if(event.throwable != null) {
+            sb.append(event.throwable);
+        }else if(event.rawThrowable != null) { // kept for the black box, the sink was activated meanwhile
+            sb.append(JFRLogger.throwableToString(event.rawThrowable));
+        }
+        return sb.toString();
+    }
+
+    private static String level(JFRLogEvent event) {
+        switch(event.level()) {
+            case JFRLogger.TRACE: return "TRACE";
+            case JFRLogger.DEBUG: return "DEBUG";
+            case JFRLogger.INFO:  return "INFO ";
+            case JFRLogger.WARN:  return "WARN ";
+            default:              return "ERROR";
+        }
+    }
+
+    private void write(String line) throws IOException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        int offset = 0;
+        while(offset < bytes.length) {
+            if(!buffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+
+    private static final class Entry {
+
+        private final JFRLogEvent event;
+        private final long time;
+        private final String thread;
+
+        private Entry(JFRLogEvent event, long time, String thread) {
+            this.event = event;
+            this.time = time;
+            this.thread = thread;
+        }
+    }
+
+}
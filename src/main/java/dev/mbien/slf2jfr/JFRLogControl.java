@@ -0,0 +1,107 @@
+package dev.mbien.slf2jfr;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.helpers.Reporter;
+
+/**
+ * JMX access to the level rules of {@link JFRLoggerFactory}.
+ *
+ * @author mbien
+ */
+final class JFRLogControl implements JFRLogControlMXBean {
+
+    static final String OBJECT_NAME = "dev.mbien.jfrlog:type=JFRLogControl";
+
+    private JFRLogControl() {}
+
+    static void register() {
+        try{
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new JFRLogControl(), new ObjectName(OBJECT_NAME));
+        }catch(JMException | SecurityException ex) {
+            Reporter.error("JFRLog: failed to register "+OBJECT_NAME, ex);
+        }
+    }
+
+    @Override
+    public Map<String, String> getLevels() {
+        return JFRLoggerFactory.getLevelRules();
+    }
+
+    @Override
+    public String getDefaultLevel() {
+        return JFRLoggerFactory.getDefaultLevel();
+    }
+
+    @Override
+    public void setDefaultLevel(String level) {
+        synchronized(JFRLoggerFactory.class) {
+            JFRLoggerFactory.setLevelRules(JFRLoggerFactory.getLevelRules(), checkLevel(level));
+        }
+    }
+
+    @Override
+    public String getLevel(String loggerName) {
+        return JFRLoggerFactory.getLevel(loggerName);
+    }
+
+    @Override
+    public void setLevel(String prefix, String level) {
+        checkPrefix(prefix);
+        level = checkLevel(level);
+        synchronized(JFRLoggerFactory.class) {
+            Map<String, String> rules = new HashMap<>(JFRLoggerFactory.getLevelRules());
+            rules.put(prefix, level);
+            JFRLoggerFactory.setLevelRules(rules, JFRLoggerFactory.getDefaultLevel());
+        }
+    }
+
+    @Override
+    public void removeLevel(String prefix) {
+        checkPrefix(prefix);
+        synchronized(JFRLoggerFactory.class) {
+            Map<String, String> rules = new HashMap<>(JFRLoggerFactory.getLevelRules());
+            if(rules.remove(prefix) != null) {
+                JFRLoggerFactory.setLevelRules(rules, JFRLoggerFactory.getDefaultLevel());
+            }
+        }
+    }
+
+    @Override
+    public void reload() {
+        JFRLoggerFactory.reloadLevelRules();
+    }
+
+    @Override
+    public int getLoggerCount() {
+        return JFRLoggerFactory.getLoggerCount();
+    }
+
+    @Override
+    public int dumpBlackBox() {
+        return BlackBox.dump();
+    }
+
+    private static void checkPrefix(String prefix) {
+        if(prefix == null || Settings.isBlank(prefix) || Settings.isOption(prefix)) {
+            throw new IllegalArgumentException("invalid logger name prefix: '"+prefix+"'");
+        }
+    }
+
+    // parseLevel maps unknown levels to trace, typos should fail here instead
+    private static String checkLevel(String level) {
+        if(level != null) {
+            level = level.trim().toLowerCase(Locale.ROOT);
+            switch(level) {
+                case "all": case "trace": case "debug": case "info": case "warn": case "error": case "off":
+                    return level;
+            }
+        }
+        throw new IllegalArgumentException("unknown level: '"+level+"'");
+    }
+
+}
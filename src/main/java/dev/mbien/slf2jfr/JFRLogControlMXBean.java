@@ -0,0 +1,56 @@
+package dev.mbien.slf2jfr;
+
+import java.util.Map;
+
+/**
+ * Changes logger levels at runtime. Registered as {@code dev.mbien.jfrlog:type=JFRLogControl}
+ * on the platform MBeanServer if {@code jfrlog.jmx} is enabled.
+ * <p>
+ * Level changes apply to existing and future loggers. They are lost on {@link #reload()}
+ * and on JVM restart.
+ *
+ * @author mbien
+ */
+public interface JFRLogControlMXBean {
+
+    /**
+     * Level rules by logger name prefix, without the default level.
+     */
+    Map<String, String> getLevels();
+
+    String getDefaultLevel();
+
+    void setDefaultLevel(String level);
+
+    /**
+     * Returns the effective level of the given logger name.
+     */
+    String getLevel(String loggerName);
+
+    /**
+     * Sets the level of all loggers with the given name prefix.
+     * The most specific rule wins, same as in jfrlog.properties.
+     */
+    void setLevel(String prefix, String level);
+
+    /**
+     * Removes the level rule of the given name prefix.
+     */
+    void removeLevel(String prefix);
+
+    /**
+     * Replaces all level rules with the rules from the jfrlog.properties file and JVM arguments.
+     */
+    void reload();
+
+    /**
+     * Number of live loggers affected by level changes.
+     */
+    int getLoggerCount();
+
+    /**
+     * Dumps the events of the black box (jfrlog.blackBox), returns the number of dumped events.
+     */
+    int dumpBlackBox();
+
+}
@@ -1,10 +1,12 @@
 package dev.mbien.slf2jfr;
 
+import java.util.Arrays;
 import jdk.jfr.Category;
 import jdk.jfr.Description;
 import jdk.jfr.Event;
 import jdk.jfr.Label;
 import jdk.jfr.Name;
+import jdk.jfr.SettingDefinition;
 import jdk.jfr.StackTrace;
 
 /**
@@ -14,7 +16,7 @@ import jdk.jfr.StackTrace;
  */
 @Category("JFR Logger")
 @StackTrace(false)
-class JFRLogEvent extends Event {
+abstract class JFRLogEvent extends Event {
     
     @Label("Log Message")
     String message;
@@ -22,33 +24,328 @@ class JFRLogEvent extends Event {
     @Label("Source of the log message")
     String origin;
     
+    @Label("Origin class")
+    @Description("Class of the logger if jfrlog.originClass is enabled and the logger name is a class name, origin is null then.")
+    Class<?> originClass;
+    
+    @Label("Marker")
+    @Description("Name of the marker and its references, null if there is none.")
+    String marker;
+    
+    @Label("Caller class")
+    @Description("Class which called the logger, only recorded if jfrlog.callerLocation is enabled for the level.")
+    String callerClass;
+    
+    @Label("Caller method")
+    String callerMethod;
+    
+    @Label("Caller line")
+    int callerLine;
+    
+    @Label("Sample rate")
+    @Description("1 in sampleRate events of this level and logger was recorded (jfrlog.sample.*), 0 if not sampled.")
+    int sampleRate;
+    
+    @Label("Truncated")
+    @Description("True if the message, an argument or the throwable was shortened by a jfrlog.max* limit.")
+    boolean truncated;
+    
+    @Label("Mapped Diagnostic Context")
+    @Description("MDC entries as key=value pairs, null if the MDC is empty.")
+    String mdc;
+    
     @Label("A Throwable printed as String or null")
     String throwable;
+    
+    @Label("Throwable id")
+    @Description("References a log.ThrowableDefinition event of the same chunk, 0 if there is none.")
+    long throwableId;
+    
+    @Label("Message pattern")
+    @Description("The unformatted log message if formatting was deferred, the arguments are stored in the arg fields.")
+    String pattern;
+    
+    @Label("Argument 0")
+    String arg0;
+    
+    @Label("Argument 1")
+    String arg1;
+    
+    @Label("Argument 2")
+    String arg2;
+    
+    @Label("Argument 3")
+    String arg3;
+    
+    static final int MAX_ARGS = 4;
+    
+    @Label("Argument types")
+    @Description("4 bits per argument starting with arg0: 1 string (argN), 2 long, 3 double, 4 float, 5 boolean (longArgN is 0 or 1). 0 if the arguments were not typed.")
+    int argTypes;
+    
+    @Label("Long argument 0")
+    long longArg0;
+    
+    @Label("Long argument 1")
+    long longArg1;
+    
+    @Label("Long argument 2")
+    long longArg2;
+    
+    @Label("Long argument 3")
+    long longArg3;
+    
+    @Label("Double argument 0")
+    double doubleArg0;
+    
+    @Label("Double argument 1")
+    double doubleArg1;
+    
+    @Label("Double argument 2")
+    double doubleArg2;
+    
+    @Label("Double argument 3")
+    double doubleArg3;
+    
+    static final int ARG_STRING  = 1;
+    static final int ARG_LONG    = 2;
+    static final int ARG_DOUBLE  = 3;
+    static final int ARG_FLOAT   = 4;
+    static final int ARG_BOOLEAN = 5;
+    
+    @Label("Key 0")
+    @Description("Key of the first key-value pair added with the fluent logging API.")
+    String key0;
+    
+    @Label("Value 0")
+    String value0;
+    
+    @Label("Key 1")
+    String key1;
+    
+    @Label("Value 1")
+    String value1;
+    
+    @Label("Key 2")
+    String key2;
+    
+    @Label("Value 2")
+    String value2;
+    
+    @Label("Key 3")
+    String key3;
+    
+    @Label("Value 3")
+    String value3;
+    
+    static final int MAX_KEY_VALUES = 4;
+    
+    // unformatted message of events which are only kept by the black box, not recorded
+    transient String rawFormat;
+    transient int rawArity; // -1 if rawArg1 is the argument array
+    transient Object rawArg1;
+    transient Object rawArg2;
+    transient Throwable rawThrowable;
 
     private JFRLogEvent() {}
     
+    /**
+     * The level bit of this event, see {@link JFRLogger}.
+     */
+    abstract int level();
+    
+    /**
+     * The logger name, regardless whether it was recorded as name or class.
+     */
+    String originName() {
+        return originClass != null ? originClass.getName() : origin;
+    }
+    
+    /**
+     * Returns the message, formats it first if formatting was deferred.
+     */
+    String formatMessage() {
+        if(rawFormat != null) {
+            return formatRaw(rawFormat, rawArity, rawArg1, rawArg2);
+        }
+        if(message != null || pattern == null) {
+            return message;
+        }
+        if(argTypes != 0) {
+            Object[] args = new Object[argCount(argTypes)];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = typedArg(i);
+            }
+            return MessageTemplate.of(pattern).format(args);
+        }
+        int count = arg0 == null ? 0 : arg1 == null ? 1 : arg2 == null ? 2 : arg3 == null ? 3 : 4;
+        Object[] args = {arg0, arg1, arg2, arg3};
+        return MessageTemplate.of(pattern).format(Arrays.copyOf(args, count));
+    }
+    
+    void setRaw(String format, int arity, Object arg1, Object arg2) {
+        rawFormat = format;
+        rawArity = arity;
+        rawArg1 = arg1;
+        rawArg2 = arg2;
+    }
+    
+    static String formatRaw(String format, int arity, Object arg1, Object arg2) {
+        MessageTemplate template = MessageTemplate.of(format);
+        switch(arity) {
+            case 1:  return template.format(arg1);
+            case 2:  return template.format(arg1, arg2);
+            default: return template.format((Object[]) arg1);
+        }
+    }
+    
+    @Name("origin")
+    @Label("Origin Filter")
+    @Description("Comma separated logger name prefixes, records events of all origins if empty.")
+    @SettingDefinition
+    protected boolean originFilter(OriginFilter filter) {
+        return filter.accept(originName());
+    }
+    
+    void setArg(int index, String value) {
+        switch(index) {
+            case 0: arg0 = value; break;
+            case 1: arg1 = value; break;
+            case 2: arg2 = value; break;
+            case 3: arg3 = value; break;
+            default: throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+    }
+    
+    /**
+     * Stores numbers and booleans in the typed slots, returns false for all other types.
+     */
+    boolean setTypedArg(int index, Object arg) {
+        int type;
+        if(arg instanceof Long || arg instanceof Integer || arg instanceof Short || arg instanceof Byte) {
+            setLongArg(index, ((Number) arg).longValue());
+            type = ARG_LONG;
+        }else if(arg instanceof Double) {
+            setDoubleArg(index, (Double) arg);
+            type = ARG_DOUBLE;
+        }else if(arg instanceof Float) {
+            setDoubleArg(index, (Float) arg);
+            type = ARG_FLOAT;
+        }else if(arg instanceof Boolean) {
+            setLongArg(index, (Boolean) arg ? 1 : 0);
+            type = ARG_BOOLEAN;
+        }else{
+            return false;
+        }
+        argTypes |= type << (index * 4);
+        return true;
+    }
+    
+    /**
+     * Stores the String representation of an argument which has no typed slot.
+     */
+    void setStringArg(int index, String value) {
+        setArg(index, value);
+        argTypes |= ARG_STRING << (index * 4);
+    }
+    
+    private void setLongArg(int index, long value) {
+        switch(index) {
+            case 0: longArg0 = value; break;
+            case 1: longArg1 = value; break;
+            case 2: longArg2 = value; break;
+            case 3: longArg3 = value; break;
+            default: throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+    }
+    
+    private void setDoubleArg(int index, double value) {
+        switch(index) {
+            case 0: doubleArg0 = value; break;
+            case 1: doubleArg1 = value; break;
+            case 2: doubleArg2 = value; break;
+            case 3: doubleArg3 = value; break;
+            default: throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+    }
+    
+    private Object typedArg(int index) {
+        switch(index) {
+            case 0: return typedArg(argType(argTypes, 0), arg0, longArg0, doubleArg0);
+            case 1: return typedArg(argType(argTypes, 1), arg1, longArg1, doubleArg1);
+            case 2: return typedArg(argType(argTypes, 2), arg2, longArg2, doubleArg2);
+            case 3: return typedArg(argType(argTypes, 3), arg3, longArg3, doubleArg3);
+            default: throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+    }
+    
+    /**
+     * The argument as boxed value of its recorded type, formats like the original argument.
+     */
+    static Object typedArg(int type, String str, long l, double d) {
+        switch(type) {
+            case ARG_LONG:    return l;
+            case ARG_DOUBLE:  return d;
+            case ARG_FLOAT:   return (float) d;
+            case ARG_BOOLEAN: return l != 0;
+            default:          return str;
+        }
+    }
+    
+    static int argType(int argTypes, int index) {
+        return (argTypes >>> (index * 4)) & 0xF;
+    }
+    
+    static int argCount(int argTypes) {
+        int count = 0;
+        while(count < MAX_ARGS && argType(argTypes, count) != 0) {
+            count++;
+        }
+        return count;
+    }
+    
+    void setKeyValue(int index, String key, String value) {
+        switch(index) {
+            case 0: key0 = key; value0 = value; break;
+            case 1: key1 = key; value1 = value; break;
+            case 2: key2 = key; value2 = value; break;
+            case 3: key3 = key; value3 = value; break;
+            default: throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+    }
+    
     @Name("log.Trace")
     @Label("Trace log event")
     @Description("Someone logged something.")
-    final static class Trace extends JFRLogEvent {}
+    final static class Trace extends JFRLogEvent {
+        @Override int level() { return JFRLogger.TRACE; }
+    }
     
     @Name("log.Debug")
     @Label("Debug log event")
     @Description("Someone logged something.")
-    final static class Debug extends JFRLogEvent {}
+    final static class Debug extends JFRLogEvent {
+        @Override int level() { return JFRLogger.DEBUG; }
+    }
     
     @Name("log.Info")
     @Label("Info log event")
     @Description("Someone logged something.")
-    final static class Info extends JFRLogEvent {}
+    final static class Info extends JFRLogEvent {
+        @Override int level() { return JFRLogger.INFO; }
+    }
     
     @Name("log.Warn")
     @Label("Warning log event")
     @Description("Someone logged something.")
-    final static class Warn extends JFRLogEvent {}
+    final static class Warn extends JFRLogEvent {
+        @Override int level() { return JFRLogger.WARN; }
+    }
     
     @Name("log.Error")
     @Label("Error log event")
     @Description("Someone logged something.")
-    final static class Error extends JFRLogEvent {}
+    final static class Error extends JFRLogEvent {
+        @Override int level() { return JFRLogger.ERROR; }
+    }
 }
\ No newline at end of file
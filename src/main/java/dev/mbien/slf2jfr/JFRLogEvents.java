@@ -0,0 +1,89 @@
+package dev.mbien.slf2jfr;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+
+/**
+ * Helps reading log events from recordings.
+ *
+ * @author mbien
+ */
+public final class JFRLogEvents {
+
+    private static final String[] ARG_FIELDS = {"arg0", "arg1", "arg2", "arg3"};
+    private static final String[] LONG_ARG_FIELDS = {"longArg0", "longArg1", "longArg2", "longArg3"};
+    private static final String[] DOUBLE_ARG_FIELDS = {"doubleArg0", "doubleArg1", "doubleArg2", "doubleArg3"};
+
+    private JFRLogEvents() {}
+
+    /**
+     * Returns the message of the recorded log event. Messages which were recorded
+     * with deferred formatting (jfrlog.deferFormatting) are formatted from the
+     * pattern and its arguments.
+     *
+     * @throws IllegalArgumentException if the event is not a log event.
+     */
+    public static String getMessage(RecordedEvent event) {
+
+        String message = event.getString("message");
+        if(message != null || !event.hasField("pattern")) {
+            return message;
+        }
+
+        String pattern = event.getString("pattern");
+        if(pattern == null) {
+            return null;
+        }
+
+        return MessageTemplate.of(pattern).format(getArguments(event));
+    }
+
+    /**
+     * Returns the origin (logger name) of the recorded log event, regardless whether
+     * it was recorded as name or as class (jfrlog.originClass). Returns null if the
+     * origin was not recorded.
+     *
+     * @throws IllegalArgumentException if the event is not a log event.
+     */
+    public static String getOrigin(RecordedEvent event) {
+        if(event.hasField("originClass")) {
+            RecordedClass originClass = event.getClass("originClass");
+            if(originClass != null) {
+                return originClass.getName();
+            }
+        }
+        return event.getString("origin");
+    }
+
+    /**
+     * Returns the arguments of a log event which was recorded with deferred formatting.
+     * Arguments recorded in typed fields (jfrlog.typedArgs) are returned as Long, Double,
+     * Float or Boolean, all others as String. Returns an empty array if there are none.
+     *
+     * @throws IllegalArgumentException if the event is not a log event.
+     */
+    public static Object[] getArguments(RecordedEvent event) {
+
+        int argTypes = event.hasField("argTypes") ? event.getInt("argTypes") : 0;
+        if(argTypes != 0) {
+            Object[] args = new Object[JFRLogEvent.argCount(argTypes)];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = JFRLogEvent.typedArg(JFRLogEvent.argType(argTypes, i),
+                        event.getString(ARG_FIELDS[i]), event.getLong(LONG_ARG_FIELDS[i]), event.getDouble(DOUBLE_ARG_FIELDS[i]));
+            }
+            return args;
+        }
+
+        int count = 0;
+        while(count < ARG_FIELDS.length && event.getString(ARG_FIELDS[count]) != null) {
+            count++;
+        }
+
+        Object[] args = new Object[count];
+        for (int i = 0; i < count; i++) {
+            args[i] = event.getString(ARG_FIELDS[i]);
+        }
+        return args;
+    }
+
+}
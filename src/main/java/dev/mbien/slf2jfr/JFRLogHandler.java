@@ -0,0 +1,127 @@
+package dev.mbien.slf2jfr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * java.util.logging handler which records log records as JFR log events of the JFRLogger
+ * with the same name. JUL levels map like SEVERE - error, WARNING - warn, INFO and CONFIG - info,
+ * FINE and FINER - debug, FINEST and below - trace (like the SLF4JBridgeHandler of jul-to-slf4j).
+ * <p>
+ * {@link #install()} replaces the handlers of the JUL root logger and sets the JUL levels according
+ * to the jfrlog level rules, disabled levels are rejected by the JUL logger before it allocates a
+ * LogRecord. The handler can also be configured in logging.properties
+ * ({@code handlers=dev.mbien.slf2jfr.JFRLogHandler}), JUL levels stay as configured there.
+ * <p>
+ * The handler keeps the JFRLogger of each JUL logger name, regardless of jfrlog.loggerCache.
+ *
+ * @author mbien
+ */
+public class JFRLogHandler extends Handler {
+
+    // JUL only references loggers weakly, configured levels would be lost otherwise
+    private static final List<Logger> configured = new ArrayList<>();
+
+    // resolved once per JUL logger name, see logger(LogRecord)
+    private final ConcurrentHashMap<String, JFRLogger> loggers = new ConcurrentHashMap<>();
+
+    public JFRLogHandler() {}
+
+    /**
+     * Replaces all handlers of the JUL root logger with a JFRLogHandler and applies the
+     * jfrlog level rules to the JUL loggers. Level rules changed later (jfrlog.jmx or
+     * jfrlog.watch) are applied to JUL by installing again.
+     */
+    public static synchronized JFRLogHandler install() {
+        Logger root = Logger.getLogger("");
+        for (Handler handler : root.getHandlers()) {
+            root.removeHandler(handler);
+        }
+        JFRLogHandler handler = new JFRLogHandler();
+        root.addHandler(handler);
+
+        for (Logger logger : configured) {
+            logger.setLevel(null);
+        }
+        configured.clear();
+        root.setLevel(toJULLevel(JFRLogger.parseLevel(JFRLoggerFactory.getDefaultLevel())));
+        JFRLoggerFactory.getLevelRules().forEach((prefix, level) -> {
+            Logger logger = Logger.getLogger(prefix);
+            logger.setLevel(toJULLevel(JFRLogger.parseLevel(level)));
+            configured.add(logger);
+        });
+        return handler;
+    }
+
+    @Override
+    public boolean isLoggable(LogRecord record) {
+        return record != null && super.isLoggable(record) && logger(record).isEnabled(toLevel(record.getLevel()));
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if(record == null || !super.isLoggable(record)) {
+            return;
+        }
+        JFRLogger logger = logger(record);
+        int level = toLevel(record.getLevel());
+        if(logger.isEnabled(level)) {
+            logger.publish(level, JFRLogger.localize(record.getResourceBundle(), record.getMessage()),
+                    record.getParameters(), record.getThrown());
+        }
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+
+    private JFRLogger logger(LogRecord record) {
+        String name = record.getLoggerName();
+        if(name == null) {
+            name = "";
+        }
+        JFRLogger logger = loggers.get(name);
+        if(logger == null) {
+            logger = loggers.computeIfAbsent(name, n -> (JFRLogger) JFRLoggerFactory.getFactory().getLogger(n));
+        }
+        return logger;
+    }
+
+    // same thresholds as the SLF4JBridgeHandler of jul-to-slf4j
+    static int toLevel(Level level) {
+        int value = level.intValue();
+        if(value == Level.OFF.intValue()) {
+            return JFRLogger.LEVEL_OFF;
+        }else if(value <= Level.FINEST.intValue()) {
+            return JFRLogger.TRACE;
+        }else if(value <= Level.FINE.intValue()) {
+            return JFRLogger.DEBUG;
+        }else if(value <= Level.INFO.intValue()) {
+            return JFRLogger.INFO;
+        }else if(value <= Level.WARNING.intValue()) {
+            return JFRLogger.WARN;
+        }else{
+            return JFRLogger.ERROR;
+        }
+    }
+
+    // the most verbose JUL level which maps to an enabled level
+    static Level toJULLevel(int levels) {
+        switch(Integer.lowestOneBit(levels)) {
+            case JFRLogger.TRACE: return Level.ALL;
+            case JFRLogger.DEBUG: return Level.FINER;
+            case JFRLogger.INFO:  return Level.CONFIG;
+            case JFRLogger.WARN:  return Level.WARNING;
+            case JFRLogger.ERROR: return Level.SEVERE;
+            default:              return Level.OFF;
+        }
+    }
+
+}
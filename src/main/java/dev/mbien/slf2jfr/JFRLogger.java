@@ -1,383 +1,862 @@
 package dev.mbien.slf2jfr;
 
+import java.io.ObjectStreamException;
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.io.StringWriter;
-import java.text.Format;
-import java.text.MessageFormat;
+import java.util.List;
 import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
 import jdk.jfr.EventType;
-import org.slf4j.helpers.MarkerIgnoringBase;
-import org.slf4j.helpers.MessageFormatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.event.KeyValuePair;
+import org.slf4j.event.LoggingEvent;
+import org.slf4j.spi.LoggingEventAware;
 
 /**
  * Records log messages as JFR events.
+ * <p>
+ * There is only one logger implementation, the level is a bitmask. This keeps
+ * call sites monomorphic, regardless of how many levels are in use.
+ * <p>
+ * Events of the slf4j 2 fluent API are recorded via {@link #log(LoggingEvent)},
+ * key-value pairs are stored in the key/value fields of the event.
+ * <p>
+ * Markers are recorded in the marker field. Markers created by {@link JFRMarkerFactory}
+ * carry precomputed level masks (jfrlog.marker.* rules) which override the logger level.
  * 
  * @author mbien
  */
-public class JFRLogger extends MarkerIgnoringBase {
+public final class JFRLogger implements Logger, LoggingEventAware, Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    // level bits
+    static final int TRACE = 1;
+    static final int DEBUG = 1 << 1;
+    static final int INFO  = 1 << 2;
+    static final int WARN  = 1 << 3;
+    static final int ERROR = 1 << 4;
+    
+    // level masks, each level includes the levels above
+    static final int LEVEL_OFF   = 0;
+    static final int LEVEL_ERROR = ERROR;
+    static final int LEVEL_WARN  = LEVEL_ERROR | WARN;
+    static final int LEVEL_INFO  = LEVEL_WARN | INFO;
+    static final int LEVEL_DEBUG = LEVEL_INFO | DEBUG;
+    static final int LEVEL_TRACE = LEVEL_DEBUG | TRACE;
+    
 
-    private static final Locale locale = Locale.getDefault(Locale.Category.FORMAT);
-    private static final String ARG_PLACEHOLDER = "{}";
+    private static final boolean typedArgs = Settings.getBoolean("typedArgs", false);
+    private static final boolean deferFormatting = typedArgs || Settings.getBoolean("deferFormatting", false);
+    private static final boolean throwableDedup = Settings.getBoolean("throwableDedup", false);
+    private static final boolean coalescing = Coalescer.isEnabled();
+    private static final boolean statistics = LogStatistics.ENABLED;
+    private static final boolean lazyBootstrap = LazyBootstrap.ENABLED;
+    private static final int maxMessageLength = Settings.getInt("maxMessageLength", 0);
+    private static final int callerLocation = parseLevel(Settings.getString("callerLocation", "off").toLowerCase(Locale.ROOT));
     
-    JFRLogger() {
-        this(null);
-    }
+    private final String name;
+    
+    // may change at runtime if jfrlog.jmx or jfrlog.watch is enabled
+    private volatile int levels;
+    
+    private final transient Throttle throttle; // null if not throttled
+    
+    private final transient EventCategory category; // null if the static log event types are used
+    
+    private final Class<?> originClass; // null if the origin is recorded as name
     
-    JFRLogger(String name) {
+    private final transient Sampler sampler; // null if no level is sampled
+
+    JFRLogger(String name, int levels) {
+        this(name, levels, null, null, null, null);
+    }
+
+    JFRLogger(String name, int levels, Throttle throttle, EventCategory category, Class<?> originClass, Sampler sampler) {
         this.name = name;
+        this.levels = levels;
+        this.throttle = throttle;
+        this.category = category;
+        this.originClass = originClass;
+        this.sampler = sampler;
+    }
+    
+    /**
+     * Parses the level name, all levels above the given level are enabled too.
+     * Unknown levels map to trace.
+     */
+    static int parseLevel(String level) {
+        switch(level) { // no hash collisions; should be very fast
+            case "all":
+            case "trace": return LEVEL_TRACE;
+            case "debug": return LEVEL_DEBUG;
+            case "info":  return LEVEL_INFO;
+            case "warn":  return LEVEL_WARN;
+            case "error": return LEVEL_ERROR;
+            case "off":   return LEVEL_OFF;
+            default:      return LEVEL_TRACE;
+        }
+    }
+    
+    int getLevels() {
+        return levels;
+    }
+    
+    void setLevels(int levels) {
+        this.levels = levels;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public String toString() {
+        return getClass().getName() + "(" + getName() + ")";
+    }
+    
+    // same as slf4j's NamedLoggerBase
+    protected Object readResolve() throws ObjectStreamException {
+        return LoggerFactory.getLogger(getName());
     }
     
-    private static String throwableToString(Throwable t) {
+    static String throwableToString(Throwable t) {
         if (t == null) return null;
+        if (ThrowablePrinter.isBounded()) return new ThrowablePrinter().print(t);
         StringWriter sw = new StringWriter(1024);
         t.printStackTrace(new PrintWriter(sw));
         return sw.toString();
     }
-
-    // slf4j is supposed to support three different msg formats at the same time
-    // without knowing which format is in the string
-    //  - the slf4j format is based on simple {} placeholders
-    //  - MessageFormat uses indexed placeholders i.e. {0} {1}
-    //  - and String.format uses %x tokens
-    // TODO this is a bit hacky right now
-    private static String format(String format, Object arg) {
-        
-        if(format.contains(ARG_PLACEHOLDER)) {
-            return MessageFormatter.format(format, arg).getMessage();
+    
+    // records a reference to the throwable definition instead of the printed throwable if possible,
+    // events for the black box or the fallback sink keep the printed throwable
+    private void setThrowable(JFRLogEvent event, Throwable t) {
+        long start = statistics ? System.nanoTime() : 0;
+        if(throwableDedup && t != null && ThrowableCache.isEnabled() && isCommitted(event)) {
+            ThrowableCache.define(event, t);
+        }else if(t != null && ThrowablePrinter.isBounded()) {
+            ThrowablePrinter printer = new ThrowablePrinter();
+            event.throwable = printer.print(t);
+            event.truncated |= printer.isTruncated();
+        }else{
+            event.throwable = throwableToString(t);
+        }
+        if(statistics) {
+            LogStatistics.throwableRecorded(start);
         }
+    }
 
-        try{
-            MessageFormat mf = new MessageFormat(format, locale);
-            Format[] formats = mf.getFormats();
-            if (formats != null && formats.length > 0) {
-                return mf.format(arg);
+    // records the pattern and its arguments instead of the message if possible
+    private static void setMessage(JFRLogEvent event, String format, Object arg) {
+        long start = statistics ? System.nanoTime() : 0;
+        MessageTemplate template = MessageTemplate.of(format);
+        if(deferFormatting && template.isDeferrable()) {
+            event.pattern = format;
+            if(!(arg instanceof Throwable)) {
+                setArg(event, 0, arg);
             }
-        }catch(Exception ignored) {}
-        
-        try{
-            return String.format(locale, format, arg);
-        }catch(Exception ignored) {}
-        
-        return format;
+        }else{
+            event.message = limit(event, template.format(arg));
+        }
+        if(statistics) {
+            LogStatistics.formatted(start);
+        }
     }
     
-    private static String format(String format, Object arg1, Object arg2) {
+    private static void setMessage(JFRLogEvent event, String format, Object arg1, Object arg2) {
+        long start = statistics ? System.nanoTime() : 0;
+        MessageTemplate template = MessageTemplate.of(format);
+        if(deferFormatting && template.isDeferrable()) {
+            event.pattern = format;
+            setArg(event, 0, arg1);
+            setArg(event, 1, arg2);
+        }else{
+            event.message = limit(event, template.format(arg1, arg2));
+        }
+        if(statistics) {
+            LogStatistics.formatted(start);
+        }
+    }
 
-        if(format.contains(ARG_PLACEHOLDER)) {
-            return MessageFormatter.format(format, arg1, arg2).getMessage();
+    private static void setMessage(JFRLogEvent event, String format, Object[] args) {
+        long start = statistics ? System.nanoTime() : 0;
+        MessageTemplate template = MessageTemplate.of(format);
+        int count = args.length;
+        if(args[count-1] instanceof Throwable) {
+            count--;
         }
-        
-        try{
-            MessageFormat mf = new MessageFormat(format, locale);
-            Format[] formats = mf.getFormats();
-            if (formats != null && formats.length > 0) {
-                return mf.format(new Object[] {arg1, arg2});
+        if(deferFormatting && template.isDeferrable() && count <= JFRLogEvent.MAX_ARGS) {
+            event.pattern = format;
+            for (int i = 0; i < count; i++) {
+                setArg(event, i, args[i]);
             }
-        }catch(Exception igmored) {}
-        
-        try{
-            return String.format(locale, format, arg1, arg2);
-        }catch(Exception ignored) {}
-        
-        return format;
+        }else{
+            event.message = limit(event, template.format(args));
+        }
+        if(statistics) {
+            LogStatistics.formatted(start);
+        }
     }
-
-    private static String format(String format, Object[] args) {
-        
-        if(format.contains(ARG_PLACEHOLDER)) {
-            return MessageFormatter.arrayFormat(format, args).getMessage();
+    
+    // cuts off text beyond jfrlog.maxMessageLength, templates stop formatting right after the limit
+    private static String limit(JFRLogEvent event, String text) {
+        if(maxMessageLength > 0 && text != null && text.length() > maxMessageLength) {
+            event.truncated = true;
+            return text.substring(0, maxMessageLength);
         }
-
-        try{
-            MessageFormat mf = new MessageFormat(format, locale);
-            Format[] formats = mf.getFormats();
-            if (formats != null && formats.length > 0) {
-                return mf.format(args);
+        return text;
+    }
+    
+    private static void setArg(JFRLogEvent event, int index, Object arg) {
+        if(typedArgs) {
+            if(!event.setTypedArg(index, arg)) {
+                event.setStringArg(index, limit(event, MessageTemplate.argToString(arg)));
             }
-        }catch(Exception ignored) {}
-        
-        try{
-            return String.format(locale, format, args);
-        }catch(Exception ignored) {}
-        
-        return format;
+        }else{
+            event.setArg(index, limit(event, MessageTemplate.argToString(arg)));
+        }
+    }
+    
+    // the first pairs go to the key-value fields, the rest is appended to the message
+    private static void setKeyValues(JFRLogEvent event, List<KeyValuePair> pairs) {
+        int slots = Math.min(pairs.size(), JFRLogEvent.MAX_KEY_VALUES);
+        for (int i = 0; i < slots; i++) {
+            KeyValuePair pair = pairs.get(i);
+            event.setKeyValue(i, pair.key, MessageTemplate.argToString(pair.value));
+        }
+        if(pairs.size() > slots) {
+            StringBuilder sb = new StringBuilder(String.valueOf(event.message));
+            for (int i = slots; i < pairs.size(); i++) {
+                KeyValuePair pair = pairs.get(i);
+                sb.append(' ').append(pair.key).append('=').append(MessageTemplate.argToString(pair.value));
+            }
+            event.message = limit(event, sb.toString());
+        }
     }
     
     
-    private void record(JFRLogEvent event, String msg) {
-        event.origin = name;
-        event.message = msg;
-        event.commit();
+    // evaluates the JFR settings of the event (e.g. the origin filter), sampling and
+    // the throttle before the message is formatted
+    private boolean init(JFRLogEvent event, Marker marker) {
+        if(originClass != null) {
+            event.originClass = originClass;
+        }else{
+            event.origin = name;
+        }
+        if(!shouldRecord(event)
+                || (sampler != null && !sampler.sample(event))
+                || (throttle != null && !throttle.tryAcquire())) {
+            return false;
+        }
+        event.mdc = JFRMDCAdapter.getContextString();
+        if(marker != null) {
+            event.marker = JFRMarker.label(marker);
+        }
+        if((callerLocation & event.level()) != 0) {
+            CallerLocator.locate(event);
+        }
+        return true;
     }
     
-    private void record(JFRLogEvent event, String format, Object arg1) {
-        event.origin = name;
-        event.message = format(format, arg1);
-        event.commit();
+    // events of disabled types go to the black box and/or the fallback sink if enabled
+    private static boolean hasSink() {
+        return BlackBox.ENABLED || FallbackSink.isActive();
     }
     
-    private void record(JFRLogEvent event, String msg, Throwable throwable) {
-        event.origin = name;
-        event.message = msg;
-        try{
-            event.throwable = throwableToString(throwable);
-        }finally{
+    // counts the rejected level check, always false
+    private static boolean suppressed() {
+        if(statistics) {
+            LogStatistics.suppressed();
+        }
+        return false;
+    }
+    
+    private boolean isTypeEnabled(int level) {
+        if(lazyBootstrap && !LazyBootstrap.isStarted()) {
+            return false;
+        }
+        if(category != null) {
+            return category.isEnabled(level);
+        }
+        switch(level) {
+            case TRACE: return Types.TRACE.isEnabled();
+            case DEBUG: return Types.DEBUG.isEnabled();
+            case INFO:  return Types.INFO.isEnabled();
+            case WARN:  return Types.WARN.isEnabled();
+            case ERROR: return Types.ERROR.isEnabled();
+            default: throw new IllegalArgumentException(Integer.toString(level));
+        }
+    }
+    
+    // resolving the event types registers them with JFR, deferred until the first level check
+    private static final class Types {
+        private static final EventType TRACE = EventType.getEventType(JFRLogEvent.Trace.class);
+        private static final EventType DEBUG = EventType.getEventType(JFRLogEvent.Debug.class);
+        private static final EventType INFO  = EventType.getEventType(JFRLogEvent.Info.class);
+        private static final EventType WARN  = EventType.getEventType(JFRLogEvent.Warn.class);
+        private static final EventType ERROR = EventType.getEventType(JFRLogEvent.Error.class);
+    }
+    
+    private boolean shouldRecord(JFRLogEvent event) {
+        if(category != null) {
+            return category.isEnabled(event.level()) || hasSink();
+        }
+        return event.shouldCommit() || (hasSink() && !event.isEnabled());
+    }
+    
+    // true if commit() records the event instead of passing it to the sinks
+    private boolean isCommitted(JFRLogEvent event) {
+        return category != null ? category.isEnabled(event.level()) : event.isEnabled();
+    }
+    
+    private void commit(JFRLogEvent event) {
+        if(coalescing && isCommitted(event) && Coalescer.coalesce(event, category)) {
+            return;
+        }
+        boolean committed;
+        if(category != null) {
+            committed = category.commit(event);
+        }else if(event.isEnabled()) {
             event.commit();
+            committed = true;
+        }else{
+            committed = false;
+        }
+        if(committed && statistics) {
+            LogStatistics.committed(event);
+        }
+        if(!committed) {
+            if(BlackBox.ENABLED) {
+                BlackBox.record(event);
+            }
+            if(FallbackSink.isActive()) {
+                FallbackSink.offer(event);
+            }
+        }
+        if(BlackBox.ENABLED && event.level() == ERROR) {
+            BlackBox.dump();
         }
     }
     
-    // special case for next two methods: if last arg is throwable -> record it as such
-    private void record(JFRLogEvent event, String format, Object arg1, Object arg2) {
-        try{
-            event.origin = name;
-            if(arg2 instanceof Throwable) {
-                event.message = format(format, arg1);
-                event.throwable = throwableToString((Throwable) arg2);
+    // events which only go to the black box keep the unformatted message, it is formatted if the black box is dumped
+    private boolean keepRaw(JFRLogEvent event) {
+        return BlackBox.ENABLED && !FallbackSink.isActive() && !isCommitted(event);
+    }
+    
+    private void record(JFRLogEvent event, Marker marker, String msg) {
+        if(init(event, marker)) {
+            event.message = limit(event, msg);
+            commit(event);
+        }
+    }
+    
+    private void record(JFRLogEvent event, Marker marker, String format, Object arg1) {
+        if(init(event, marker)) {
+            if(keepRaw(event)) {
+                event.setRaw(format, 1, arg1, null);
             }else{
-                event.message = format(format, arg1, arg2);
+                setMessage(event, format, arg1);
+            }
+            commit(event);
+        }
+    }
+    
+    private void record(JFRLogEvent event, Marker marker, String msg, Throwable throwable) {
+        if(init(event, marker)) {
+            event.message = limit(event, msg);
+            try{
+                if(keepRaw(event)) {
+                    event.rawThrowable = throwable;
+                }else{
+                    setThrowable(event, throwable);
+                }
+            }finally{
+                commit(event);
             }
-        }finally{
-            event.commit();
         }
     }
     
-    private void record(JFRLogEvent event, String format, Object... args) {
+    // special case for next two methods: if last arg is throwable -> record it as such
+    private void record(JFRLogEvent event, Marker marker, String format, Object arg1, Object arg2) {
+        if(init(event, marker)) {
+            try{
+                if(keepRaw(event)) {
+                    if(arg2 instanceof Throwable) {
+                        event.setRaw(format, 1, arg1, null);
+                        event.rawThrowable = (Throwable) arg2;
+                    }else{
+                        event.setRaw(format, 2, arg1, arg2);
+                    }
+                }else if(arg2 instanceof Throwable) {
+                    setMessage(event, format, arg1);
+                    setThrowable(event, (Throwable) arg2);
+                }else{
+                    setMessage(event, format, arg1, arg2);
+                }
+            }finally{
+                commit(event);
+            }
+        }
+    }
+    
+    private void record(JFRLogEvent event, Marker marker, String format, Object... args) {
         if(args.length == 0) {
-            record(event, format);
-        }else{
+            record(event, marker, format);
+        }else if(init(event, marker)) {
             try{
-                event.origin = name;
-                if(args[args.length-1] instanceof Throwable) {
-                    event.message = format(format, args);
-                    event.throwable = throwableToString((Throwable) args[args.length-1]);
+                if(keepRaw(event)) {
+                    event.setRaw(format, -1, args, null);
+                    if(args[args.length-1] instanceof Throwable) {
+                        event.rawThrowable = (Throwable) args[args.length-1];
+                    }
                 }else{
-                    event.message = format(format, args);
+                    setMessage(event, format, args);
+                    if(args[args.length-1] instanceof Throwable) {
+                        setThrowable(event, (Throwable) args[args.length-1]);
+                    }
                 }
             }finally{
-                event.commit();
+                commit(event);
             }
         }
     }
     
     
+    // fluent API, disabled levels get a no-op builder from the Logger default methods
     @Override
-    public final void trace(String msg) {
-        if(isTraceEnabled()) record(new JFRLogEvent.Trace(), msg);
+    public void log(LoggingEvent le) {
+        
+        JFRLogEvent event = newEvent(le.getLevel(), le.getMarkers());
+        if(event == null || !init(event, null)) {
+            return;
+        }
+        
+        String format = le.getMessage();
+        Object[] args = le.getArgumentArray();
+        List<KeyValuePair> pairs = le.getKeyValuePairs();
+        Throwable throwable = le.getThrowable();
+        
+        try{
+            event.marker = JFRMarker.label(le.getMarkers());
+            if(args == null || args.length == 0) {
+                event.message = limit(event, format);
+            }else{
+                if(pairs != null && pairs.size() > JFRLogEvent.MAX_KEY_VALUES) {
+                    event.message = limit(event, MessageTemplate.of(format).format(args));
+                }else{
+                    setMessage(event, format, args);
+                }
+                if(throwable == null && args[args.length-1] instanceof Throwable) {
+                    throwable = (Throwable) args[args.length-1];
+                }
+            }
+            if(pairs != null) {
+                setKeyValues(event, pairs);
+            }
+            if(throwable != null) {
+                setThrowable(event, throwable);
+            }
+        }finally{
+            commit(event);
+        }
+    }
+    
+    // the first marker decides the level
+    private JFRLogEvent newEvent(org.slf4j.event.Level level, List<Marker> markers) {
+        Marker marker = markers != null && !markers.isEmpty() ? markers.get(0) : null;
+        switch(level) {
+            case TRACE: return isTraceEnabled(marker) ? new JFRLogEvent.Trace() : null;
+            case DEBUG: return isDebugEnabled(marker) ? new JFRLogEvent.Debug() : null;
+            case INFO:  return isInfoEnabled(marker)  ? new JFRLogEvent.Info()  : null;
+            case WARN:  return isWarnEnabled(marker)  ? new JFRLogEvent.Warn()  : null;
+            case ERROR: return isErrorEnabled(marker) ? new JFRLogEvent.Error() : null;
+            default: throw new IllegalArgumentException(level.toString());
+        }
+    }
+
+    /**
+     * Level check of the JUL handler and the System.Logger bridge, level is one of the level bits.
+     */
+    boolean isEnabled(int level) {
+        switch(level) {
+            case TRACE: return isTraceEnabled();
+            case DEBUG: return isDebugEnabled();
+            case INFO:  return isInfoEnabled();
+            case WARN:  return isWarnEnabled();
+            case ERROR: return isErrorEnabled();
+            default: return false;
+        }
+    }
+
+    /**
+     * Records a message of the JUL handler or the System.Logger bridge. The params are
+     * java.text.MessageFormat arguments and only applied if the message has placeholders,
+     * like java.util.logging.Formatter does.
+     */
+    void publish(int level, String message, Object[] params, Throwable thrown) {
+
+        JFRLogEvent event = newEvent(level);
+        if(event == null || !init(event, null)) {
+            return;
+        }
+
+        try{
+            if(params == null || params.length == 0 || !hasMessageFormatPlaceholder(message)) {
+                event.message = limit(event, message);
+            }else{
+                setMessage(event, message, params);
+            }
+            if(thrown != null) {
+                setThrowable(event, thrown);
+            }
+        }finally{
+            commit(event);
+        }
+    }
+
+    // same check as java.util.logging.Formatter#formatMessage, other messages are recorded as they are
+    private static boolean hasMessageFormatPlaceholder(String message) {
+        return message != null && (message.indexOf("{0") >= 0 || message.indexOf("{1") >= 0
+                                || message.indexOf("{2") >= 0 || message.indexOf("{3") >= 0);
+    }
+
+    /**
+     * Looks up the message in the bundle, returns the message itself if there is no entry.
+     */
+    static String localize(ResourceBundle bundle, String message) {
+        if(bundle != null && message != null) {
+            try{
+                return bundle.getString(message);
+            }catch(MissingResourceException ex) {
+                return message;
+            }
+        }
+        return message;
+    }
+
+    private JFRLogEvent newEvent(int level) {
+        switch(level) {
+            case TRACE: return isTraceEnabled() ? new JFRLogEvent.Trace() : null;
+            case DEBUG: return isDebugEnabled() ? new JFRLogEvent.Debug() : null;
+            case INFO:  return isInfoEnabled()  ? new JFRLogEvent.Info()  : null;
+            case WARN:  return isWarnEnabled()  ? new JFRLogEvent.Warn()  : null;
+            case ERROR: return isErrorEnabled() ? new JFRLogEvent.Error() : null;
+            default: return null;
+        }
+    }
+
+
+    @Override
+    public void trace(String msg) {
+        if(isTraceEnabled()) record(new JFRLogEvent.Trace(), null, msg);
     }
 
     @Override
-    public final void trace(String format, Object arg1) {
-        if(isTraceEnabled()) record(new JFRLogEvent.Trace(), format, arg1);
+    public void trace(String format, Object arg1) {
+        if(isTraceEnabled()) record(new JFRLogEvent.Trace(), null, format, arg1);
     }
 
     @Override
-    public final void trace(String format, Object arg1, Object arg2) {
-        if(isTraceEnabled()) record(new JFRLogEvent.Trace(), format, arg1, arg2);
+    public void trace(String format, Object arg1, Object arg2) {
+        if(isTraceEnabled()) record(new JFRLogEvent.Trace(), null, format, arg1, arg2);
     }
 
     @Override
-    public final void trace(String format, Object... args) {
-        if(isTraceEnabled()) record(new JFRLogEvent.Trace(), format, args);
+    public void trace(String format, Object... args) {
+        if(isTraceEnabled()) record(new JFRLogEvent.Trace(), null, format, args);
     }
 
     @Override
-    public final void trace(String msg, Throwable t) {
-        if(isTraceEnabled()) record(new JFRLogEvent.Trace(), msg, t);
+    public void trace(String msg, Throwable t) {
+        if(isTraceEnabled()) record(new JFRLogEvent.Trace(), null, msg, t);
     }
 
         
     @Override
-    public final void debug(String msg) {
-        if(isDebugEnabled()) record(new JFRLogEvent.Debug(), msg);
+    public void debug(String msg) {
+        if(isDebugEnabled()) record(new JFRLogEvent.Debug(), null, msg);
     }
 
     @Override
-    public final void debug(String format, Object arg1) {
-        if(isDebugEnabled()) record(new JFRLogEvent.Debug(), format, arg1);
+    public void debug(String format, Object arg1) {
+        if(isDebugEnabled()) record(new JFRLogEvent.Debug(), null, format, arg1);
     }
 
     @Override
-    public final void debug(String format, Object arg1, Object arg2) {
-        if(isDebugEnabled()) record(new JFRLogEvent.Debug(), format, arg1, arg2);
+    public void debug(String format, Object arg1, Object arg2) {
+        if(isDebugEnabled()) record(new JFRLogEvent.Debug(), null, format, arg1, arg2);
     }
 
     @Override
-    public final void debug(String format, Object... args) {
-        if(isDebugEnabled()) record(new JFRLogEvent.Debug(), format, args);
+    public void debug(String format, Object... args) {
+        if(isDebugEnabled()) record(new JFRLogEvent.Debug(), null, format, args);
     }
 
     @Override
-    public final void debug(String msg, Throwable t) {
-        if(isDebugEnabled()) record(new JFRLogEvent.Debug(), msg, t);
+    public void debug(String msg, Throwable t) {
+        if(isDebugEnabled()) record(new JFRLogEvent.Debug(), null, msg, t);
     }
 
     
     @Override
-    public final void info(String msg) {
-        if(isInfoEnabled()) record(new JFRLogEvent.Info(), msg);
+    public void info(String msg) {
+        if(isInfoEnabled()) record(new JFRLogEvent.Info(), null, msg);
     }
 
     @Override
-    public final void info(String format, Object arg1) {
-        if(isInfoEnabled()) record(new JFRLogEvent.Info(), format, arg1);
+    public void info(String format, Object arg1) {
+        if(isInfoEnabled()) record(new JFRLogEvent.Info(), null, format, arg1);
     }
 
     @Override
-    public final void info(String format, Object arg1, Object arg2) {
-        if(isInfoEnabled()) record(new JFRLogEvent.Info(), format, arg1, arg2);
+    public void info(String format, Object arg1, Object arg2) {
+        if(isInfoEnabled()) record(new JFRLogEvent.Info(), null, format, arg1, arg2);
     }
 
     @Override
-    public final void info(String format, Object... args) {
-        if(isInfoEnabled()) record(new JFRLogEvent.Info(), format, args);
+    public void info(String format, Object... args) {
+        if(isInfoEnabled()) record(new JFRLogEvent.Info(), null, format, args);
     }
 
     @Override
-    public final void info(String msg, Throwable t) {
-        if(isInfoEnabled()) record(new JFRLogEvent.Info(), msg, t);
+    public void info(String msg, Throwable t) {
+        if(isInfoEnabled()) record(new JFRLogEvent.Info(), null, msg, t);
     }
 
     
     @Override
-    public final void warn(String msg) {
-        if(isWarnEnabled()) record(new JFRLogEvent.Warn(), msg);
+    public void warn(String msg) {
+        if(isWarnEnabled()) record(new JFRLogEvent.Warn(), null, msg);
+    }
+
+    @Override
+    public void warn(String format, Object arg1) {
+        if(isWarnEnabled()) record(new JFRLogEvent.Warn(), null, format, arg1); 
+    }
+
+    @Override
+    public void warn(String format, Object arg1, Object arg2) {
+        if(isWarnEnabled()) record(new JFRLogEvent.Warn(), null, format, arg1, arg2);
+    }
+
+    @Override
+    public void warn(String format, Object... args) {
+        if(isWarnEnabled()) record(new JFRLogEvent.Warn(), null, format, args);
+    }
+
+    @Override
+    public void warn(String msg, Throwable t) {
+        if(isWarnEnabled()) record(new JFRLogEvent.Warn(), null, msg, t);
+    }
+
+
+    @Override
+    public void error(String msg) {
+        if(isErrorEnabled()) record(new JFRLogEvent.Error(), null, msg);
+    }
+
+    @Override
+    public void error(String format, Object arg1) {
+        if(isErrorEnabled()) record(new JFRLogEvent.Error(), null, format, arg1); 
+    }
+
+    @Override
+    public void error(String format, Object arg1, Object arg2) {
+        if(isErrorEnabled()) record(new JFRLogEvent.Error(), null, format, arg1, arg2);
+    }
+
+    @Override
+    public void error(String format, Object... args) {
+        if(isErrorEnabled()) record(new JFRLogEvent.Error(), null, format, args);
+    }
+
+    @Override
+    public void error(String msg, Throwable t) {
+        if(isErrorEnabled()) record(new JFRLogEvent.Error(), null, msg, t);
+    }
+
+    @Override
+    public void trace(Marker marker, String msg) {
+        if(isTraceEnabled(marker)) record(new JFRLogEvent.Trace(), marker, msg);
+    }
+
+    @Override
+    public void trace(Marker marker, String format, Object arg1) {
+        if(isTraceEnabled(marker)) record(new JFRLogEvent.Trace(), marker, format, arg1);
+    }
+
+    @Override
+    public void trace(Marker marker, String format, Object arg1, Object arg2) {
+        if(isTraceEnabled(marker)) record(new JFRLogEvent.Trace(), marker, format, arg1, arg2);
+    }
+
+    @Override
+    public void trace(Marker marker, String format, Object... args) {
+        if(isTraceEnabled(marker)) record(new JFRLogEvent.Trace(), marker, format, args);
+    }
+
+    @Override
+    public void trace(Marker marker, String msg, Throwable t) {
+        if(isTraceEnabled(marker)) record(new JFRLogEvent.Trace(), marker, msg, t);
+    }
+
+    @Override
+    public void debug(Marker marker, String msg) {
+        if(isDebugEnabled(marker)) record(new JFRLogEvent.Debug(), marker, msg);
+    }
+
+    @Override
+    public void debug(Marker marker, String format, Object arg1) {
+        if(isDebugEnabled(marker)) record(new JFRLogEvent.Debug(), marker, format, arg1);
+    }
+
+    @Override
+    public void debug(Marker marker, String format, Object arg1, Object arg2) {
+        if(isDebugEnabled(marker)) record(new JFRLogEvent.Debug(), marker, format, arg1, arg2);
+    }
+
+    @Override
+    public void debug(Marker marker, String format, Object... args) {
+        if(isDebugEnabled(marker)) record(new JFRLogEvent.Debug(), marker, format, args);
+    }
+
+    @Override
+    public void debug(Marker marker, String msg, Throwable t) {
+        if(isDebugEnabled(marker)) record(new JFRLogEvent.Debug(), marker, msg, t);
+    }
+
+    @Override
+    public void info(Marker marker, String msg) {
+        if(isInfoEnabled(marker)) record(new JFRLogEvent.Info(), marker, msg);
+    }
+
+    @Override
+    public void info(Marker marker, String format, Object arg1) {
+        if(isInfoEnabled(marker)) record(new JFRLogEvent.Info(), marker, format, arg1);
+    }
+
+    @Override
+    public void info(Marker marker, String format, Object arg1, Object arg2) {
+        if(isInfoEnabled(marker)) record(new JFRLogEvent.Info(), marker, format, arg1, arg2);
+    }
+
+    @Override
+    public void info(Marker marker, String format, Object... args) {
+        if(isInfoEnabled(marker)) record(new JFRLogEvent.Info(), marker, format, args);
+    }
+
+    @Override
+    public void info(Marker marker, String msg, Throwable t) {
+        if(isInfoEnabled(marker)) record(new JFRLogEvent.Info(), marker, msg, t);
     }
 
     @Override
-    public final void warn(String format, Object arg1) {
-        if(isWarnEnabled()) record(new JFRLogEvent.Warn(), format, arg1); 
+    public void warn(Marker marker, String msg) {
+        if(isWarnEnabled(marker)) record(new JFRLogEvent.Warn(), marker, msg);
     }
 
     @Override
-    public final void warn(String format, Object arg1, Object arg2) {
-        if(isWarnEnabled()) record(new JFRLogEvent.Warn(), format, arg1, arg2);
+    public void warn(Marker marker, String format, Object arg1) {
+        if(isWarnEnabled(marker)) record(new JFRLogEvent.Warn(), marker, format, arg1);
     }
 
     @Override
-    public final void warn(String format, Object... args) {
-        if(isWarnEnabled()) record(new JFRLogEvent.Warn(), format, args);
+    public void warn(Marker marker, String format, Object arg1, Object arg2) {
+        if(isWarnEnabled(marker)) record(new JFRLogEvent.Warn(), marker, format, arg1, arg2);
     }
 
     @Override
-    public final void warn(String msg, Throwable t) {
-        if(isWarnEnabled()) record(new JFRLogEvent.Warn(), msg, t);
+    public void warn(Marker marker, String format, Object... args) {
+        if(isWarnEnabled(marker)) record(new JFRLogEvent.Warn(), marker, format, args);
     }
 
+    @Override
+    public void warn(Marker marker, String msg, Throwable t) {
+        if(isWarnEnabled(marker)) record(new JFRLogEvent.Warn(), marker, msg, t);
+    }
 
     @Override
-    public final void error(String msg) {
-        if(isErrorEnabled()) record(new JFRLogEvent.Error(), msg);
+    public void error(Marker marker, String msg) {
+        if(isErrorEnabled(marker)) record(new JFRLogEvent.Error(), marker, msg);
     }
 
     @Override
-    public final void error(String format, Object arg1) {
-        if(isErrorEnabled()) record(new JFRLogEvent.Error(), format, arg1); 
+    public void error(Marker marker, String format, Object arg1) {
+        if(isErrorEnabled(marker)) record(new JFRLogEvent.Error(), marker, format, arg1);
     }
 
     @Override
-    public final void error(String format, Object arg1, Object arg2) {
-        if(isErrorEnabled()) record(new JFRLogEvent.Error(), format, arg1, arg2);
+    public void error(Marker marker, String format, Object arg1, Object arg2) {
+        if(isErrorEnabled(marker)) record(new JFRLogEvent.Error(), marker, format, arg1, arg2);
     }
 
     @Override
-    public final void error(String format, Object... args) {
-        if(isErrorEnabled()) record(new JFRLogEvent.Error(), format, args);
+    public void error(Marker marker, String format, Object... args) {
+        if(isErrorEnabled(marker)) record(new JFRLogEvent.Error(), marker, format, args);
     }
 
     @Override
-    public final void error(String msg, Throwable t) {
-        if(isErrorEnabled()) record(new JFRLogEvent.Error(), msg, t);
+    public void error(Marker marker, String msg, Throwable t) {
+        if(isErrorEnabled(marker)) record(new JFRLogEvent.Error(), marker, msg, t);
     }
 
+    // a level is enabled if its bit is set,
+    // unless the event is turned off or no recording is active (which turns all events off)
+    // and neither the black box nor the fallback sink are active
     @Override
     public boolean isTraceEnabled() {
-        return false;
+        return ((levels & TRACE) != 0 && (isTypeEnabled(TRACE) || hasSink())) || suppressed();
     }
 
     @Override
     public boolean isDebugEnabled() {
-        return false;
+        return ((levels & DEBUG) != 0 && (isTypeEnabled(DEBUG) || hasSink())) || suppressed();
     }
 
     @Override
     public boolean isInfoEnabled() {
-        return false;
+        return ((levels & INFO) != 0 && (isTypeEnabled(INFO) || hasSink())) || suppressed();
     }
 
     @Override
     public boolean isWarnEnabled() {
-        return false;
+        return ((levels & WARN) != 0 && (isTypeEnabled(WARN) || hasSink())) || suppressed();
     }
 
     @Override
     public boolean isErrorEnabled() {
-        return false;
+        return ((levels & ERROR) != 0 && (isTypeEnabled(ERROR) || hasSink())) || suppressed();
     }
-    
-    // like a filter just backwards: each layer logs more levels
-    // unless the event is turned off or no recording is active (which turns all events off)
-    static class Error extends JFRLogger {
-        
-        private static final EventType EVENT_TYPE = EventType.getEventType(JFRLogEvent.Error.class);
 
-        Error() { super(); }
-        Error(String name) { super(name); }
-        
-        @Override
-        public final boolean isErrorEnabled() {
-            return EVENT_TYPE.isEnabled();
-        }
+    // marker rules override the logger level
+    @Override
+    public boolean isTraceEnabled(Marker marker) {
+        return ((JFRMarker.levels(levels, marker) & TRACE) != 0 && (isTypeEnabled(TRACE) || hasSink())) || suppressed();
     }
-    
-    static class Warn extends Error {
-        
-        private static final EventType EVENT_TYPE = EventType.getEventType(JFRLogEvent.Warn.class);
 
-        Warn() { super(); }
-        Warn(String name) { super(name); }
-        
-        @Override
-        public final boolean isWarnEnabled() {
-            return EVENT_TYPE.isEnabled();
-        }
+    @Override
+    public boolean isDebugEnabled(Marker marker) {
+        return ((JFRMarker.levels(levels, marker) & DEBUG) != 0 && (isTypeEnabled(DEBUG) || hasSink())) || suppressed();
     }
-    
-    static class Info extends Warn {
-        
-        private static final EventType EVENT_TYPE = EventType.getEventType(JFRLogEvent.Info.class);
 
-        Info() { super(); }
-        Info(String name) { super(name); }
-        
-        @Override
-        public final boolean isInfoEnabled() {
-            return EVENT_TYPE.isEnabled();
-        }
+    @Override
+    public boolean isInfoEnabled(Marker marker) {
+        return ((JFRMarker.levels(levels, marker) & INFO) != 0 && (isTypeEnabled(INFO) || hasSink())) || suppressed();
     }
-    
-    static class Debug extends Info {
-        
-        private static final EventType EVENT_TYPE = EventType.getEventType(JFRLogEvent.Debug.class);
 
-        Debug() { super(); }
-        Debug(String name) { super(name); }
-        
-        @Override
-        public final boolean isDebugEnabled() {
-            return EVENT_TYPE.isEnabled();
-        }
+    @Override
+    public boolean isWarnEnabled(Marker marker) {
+        return ((JFRMarker.levels(levels, marker) & WARN) != 0 && (isTypeEnabled(WARN) || hasSink())) || suppressed();
     }
-    
-    static final class Trace extends Debug {
-        
-        private static final EventType EVENT_TYPE = EventType.getEventType(JFRLogEvent.Trace.class);
 
-        Trace() { super(); }
-        Trace(String name) { super(name); }
-        
-        @Override
-        public final boolean isTraceEnabled() {
-            return EVENT_TYPE.isEnabled();
-        }
+    @Override
+    public boolean isErrorEnabled(Marker marker) {
+        return ((JFRMarker.levels(levels, marker) & ERROR) != 0 && (isTypeEnabled(ERROR) || hasSink())) || suppressed();
     }
+    
 }
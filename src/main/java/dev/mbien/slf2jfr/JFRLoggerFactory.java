@@ -1,18 +1,12 @@
 package dev.mbien.slf2jfr;
 
-import java.io.InputStream;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Scanner;
-import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.ILoggerFactory;
 import org.slf4j.Logger;
 
-import static java.util.Collections.reverseOrder;
-import static java.util.Map.Entry.comparingByKey;
-
 /**
  *
  * @author mbien
@@ -21,75 +15,55 @@ public class JFRLoggerFactory implements ILoggerFactory {
     
     private static final JFRLoggerFactory INSTANCE;
     
-    private static final Map<String, String> levels;
-    private static final Map<String, JFRLogger> cache;
+    // replaced as a whole if levels change at runtime
+    private static volatile LevelRules levels;
+    private static final LoggerCache cache;
+    private static final NameTrie<Throttle> throttles; // null without throttle rules
+    private static final NameTrie<EventCategory> categories; // null without event categories
     
     private static final AbstractJFRLoggerFactory factory;
     
-    private static final String PREFIX;
-    private static final String DEVAULT_LEVEL;
+    private static final boolean RECORD_ORIGIN;
+    private static final boolean RUNTIME_LEVELS;
+    private static final boolean ORIGIN_CLASS;
     
     static {
-        PREFIX = "jfrlog.";
-
-        Map<String, String> settings = new HashMap<>();
-        
-        // load properties file first and let jvm args overwrite it
-        InputStream stream = JFRLoggerFactory.class.getResourceAsStream("/jfrlog.properties");
-        if(stream != null) {
-            try(Scanner lineScanner = new Scanner(stream)) {
-                while(lineScanner.hasNextLine()) {
-                    String property = lineScanner.nextLine().trim();
-                    if(!property.isEmpty() && property.charAt(0) != '#') {
-                        int split = property.indexOf('=');
-                        if(split > PREFIX.length()) {
-                            settings.put(property.substring(PREFIX.length(), split).trim(),
-                                         property.substring(split+1, property.length()).trim());
-                        }
-                    }
-                }
-            }
-        }
-        
-        // load jvm args from properties
-        System.getProperties().forEach((key, value) -> {
-            String keyStr = (String)key;
-            if(keyStr.startsWith(PREFIX)) {
-                settings.put(keyStr.substring(PREFIX.length()), ((String)value).toLowerCase());
-            }
-        });
+        Map<String, String> settings = Settings.get();
         
         // defaults
-        boolean loggerCache = false;
+        boolean loggerCache = true;
+        int loggerCacheSize = 4096;
         boolean recordOrigin = true;
-        String defaultLevel = "trace";
+        boolean originClass = false;
+        boolean jmx = false;
+        boolean watch = false;
         
-        if(settings.isEmpty()) {
-            levels = Collections.emptyMap();
-        }else{
-            loggerCache  = parseBoolean(settings.remove("loggerCache"), loggerCache);
-            recordOrigin = parseBoolean(settings.remove("recordOrigin"), recordOrigin);
-            String level = settings.remove("default");
-            
-            if(level != null && !isBlank(level)) {
-                defaultLevel = level;
-            }
-            
-            // reverse order so that we have the most specific setting first
-            Map<String, String> reverseSorted = new LinkedHashMap<>(settings.size());
-            settings.entrySet().stream()
-                    .sorted(comparingByKey(reverseOrder()))
-                    .forEach(entry -> reverseSorted.put(entry.getKey(), entry.getValue()));
-            
-            levels = Collections.unmodifiableMap(reverseSorted);
+        if(!settings.isEmpty()) {
+            loggerCache  = Settings.getBoolean("loggerCache", loggerCache);
+            loggerCacheSize = Settings.getInt("loggerCacheSize", loggerCacheSize);
+            recordOrigin = Settings.getBoolean("recordOrigin", recordOrigin);
+            originClass = Settings.getBoolean("originClass", originClass);
+            jmx   = Settings.getBoolean("jmx", jmx);
+            watch = Settings.getBoolean("watch", watch);
         }
         
-        DEVAULT_LEVEL = defaultLevel;
+        levels = LevelRules.of(settings);
+        throttles = Throttle.fromSettings(settings);
+        categories = EventCategory.fromSettings();
+        
+        RECORD_ORIGIN = recordOrigin;
+        RUNTIME_LEVELS = jmx || watch;
+        ORIGIN_CLASS = recordOrigin && originClass;
 
-        if(recordOrigin) {
-            factory = new OriginTrackingLoggerFactory();
+        if(RUNTIME_LEVELS) {
+            // every logger must be reachable for re-levelling: one (weakly referenced) logger per name
+            factory = new InstanceLoggerFactory(recordOrigin);
+            cache = new LoggerCache(Integer.MAX_VALUE);
+        }else if(recordOrigin || throttles != null || categories != null || Sampler.isEnabled()) {
+            // throttles, event categories and samplers are per name, shared loggers would share them too
+            factory = new InstanceLoggerFactory(recordOrigin);
             if(loggerCache) {
-                cache = new ConcurrentHashMap<>(64);
+                cache = new LoggerCache(loggerCacheSize);
             }else{
                 cache = null;
             }
@@ -100,6 +74,13 @@ public class JFRLoggerFactory implements ILoggerFactory {
         
         INSTANCE = new JFRLoggerFactory();
         
+        if(jmx) {
+            JFRLogControl.register();
+        }
+        if(watch) {
+            SettingsWatcher.start();
+        }
+        
 //        System.out.println("JFRLOG Settings:");
 //        levels.entrySet().forEach(System.out::println);
         
@@ -111,112 +92,189 @@ public class JFRLoggerFactory implements ILoggerFactory {
         return INSTANCE;
     }
     
-    // for JDK8 backwards compatibility
-    private static boolean isBlank(String string) {
-        if(string.isEmpty())
-            return true;
-        for (int i = 0; i < string.length(); i++)
-            if(!Character.isWhitespace(string.charAt(i))) 
-                return false;
-        return true;
-    }
-    
-    private static boolean parseBoolean(String value, boolean defaultValue) {
-        if(value == null || isBlank(value)) {
-            return defaultValue;
-        }
-        return Boolean.parseBoolean(value);
-    }
- 
-    private static JFRLogger getLoggerForLevel(String name, String level) {
-        switch(level) { // no hash collisions; should be very fast
-            case "all":
-            case "trace": return factory.getTrace(name);
-            case "debug": return factory.getDebug(name);
-            case "info":  return factory.getInfo(name);
-            case "warn":  return factory.getWarn(name);
-            case "error": return factory.getError(name);
-            case "off":   return factory.getNoOp(name);
-            default:      return factory.getTrace(name);
-        }
-    }
-
-    
     @Override
     public Logger getLogger(String name) {
         
         if(cache != null) {
             JFRLogger cached = cache.get(name);
+            if(LogStatistics.ENABLED) {
+                if(cached != null) {
+                    LogStatistics.cacheHit();
+                }else{
+                    LogStatistics.cacheMiss();
+                }
+            }
             if(cached != null) {
                 return cached;
             }
         }
         
-        String level = levels.get(name);
-        if(level == null || level.isEmpty()) {
-            for (Map.Entry<String, String> setting : levels.entrySet()) {
-                if(name.startsWith(setting.getKey())) {
-                    level = setting.getValue();
-                    break;
-                }
-            }
-        }
+        LevelRules rules = levels;
         
-        if(level == null) {
-            level = DEVAULT_LEVEL;
-        }
+        Throttle throttle = throttles != null ? throttles.get(name, null) : null;
+        EventCategory category = categories != null ? categories.get(name, null) : null;
+        Class<?> originClass = ORIGIN_CLASS ? CallerLocator.findClass(name) : null;
+        Sampler sampler = Sampler.of(name);
         
-        JFRLogger logger = getLoggerForLevel(name, level);
+        JFRLogger logger = factory.getLogger(name, JFRLogger.parseLevel(rules.get(name)), throttle, category, originClass, sampler);
         if (cache != null) {
-            cache.put(name, logger);
+            logger = cache.put(name, logger);
+            if(RUNTIME_LEVELS) {
+                updateLevels(name, logger, rules);
+            }
         }
         
         return logger;
     }
+    
+    // the rules may have changed while the logger was created, setLevelRules() either sees the
+    // cached logger or has replaced the rules before this check (same lock)
+    private static synchronized void updateLevels(String name, JFRLogger logger, LevelRules rules) {
+        if(rules != levels) {
+            logger.setLevels(JFRLogger.parseLevel(levels.get(name)));
+        }
+    }
+    
+    /**
+     * Replaces all level rules and updates the levels of existing loggers.
+     * Only existing loggers are updated if runtime levels are enabled (jfrlog.jmx or jfrlog.watch).
+     */
+    static synchronized void setLevelRules(Map<String, String> rules, String defaultLevel) {
+        levels = new LevelRules(rules, defaultLevel);
+        if(RUNTIME_LEVELS) {
+            cache.forEach((name, logger) -> logger.setLevels(JFRLogger.parseLevel(levels.get(name))));
+        }
+    }
+    
+    /**
+     * Reloads the level rules from the jfrlog.properties file and JVM arguments.
+     */
+    static synchronized void reloadLevelRules() {
+        LevelRules rules = LevelRules.of(Settings.load());
+        setLevelRules(rules.rules, rules.defaultLevel);
+    }
+    
+    static Map<String, String> getLevelRules() {
+        return levels.rules;
+    }
+    
+    static String getDefaultLevel() {
+        return levels.defaultLevel;
+    }
+    
+    static String getLevel(String name) {
+        return levels.get(name);
+    }
+    
+    static int getLoggerCount() {
+        return RUNTIME_LEVELS ? cache.size() : 0;
+    }
 
     public boolean isLoggerCacheEnabled() {
         return cache != null;
     }
     
+    /**
+     * Number of getLogger calls answered by the logger cache, 0 if the cache is disabled.
+     */
+    public long getLoggerCacheHits() {
+        return cache != null ? cache.getHits() : 0;
+    }
+    
+    /**
+     * Number of getLogger calls which had to create a new logger, 0 if the cache is disabled.
+     */
+    public long getLoggerCacheMisses() {
+        return cache != null ? cache.getMisses() : 0;
+    }
+    
+    /**
+     * Number of loggers removed from the cache because it was full or because
+     * they were garbage collected, 0 if the cache is disabled.
+     */
+    public long getLoggerCacheEvictions() {
+        return cache != null ? cache.getEvictions() : 0;
+    }
+    
     public boolean isRecordOriginEnabled() {
-        return factory instanceof OriginTrackingLoggerFactory;
+        return RECORD_ORIGIN;
+    }
+    
+    /**
+     * Dumps the log events kept by the black box (jfrlog.blackBox) which haven't been dumped yet.
+     * Returns the number of dumped events, 0 if the black box is disabled or if no recording
+     * enables log.BlackBox (and no jfrlog.blackBoxDump file is set), events are kept then.
+     */
+    public int dumpBlackBox() {
+        return BlackBox.dump();
+    }
+    
+    
+    private static final class LevelRules {
+        
+        private final Map<String, String> rules;
+        private final NameTrie<String> trie; // picks the most specific rule
+        private final String defaultLevel;
+        
+        private LevelRules(Map<String, String> rules, String defaultLevel) {
+            this.rules = Collections.unmodifiableMap(new HashMap<>(rules));
+            this.trie = new NameTrie<>(rules);
+            this.defaultLevel = defaultLevel;
+        }
+        
+        private static LevelRules of(Map<String, String> settings) {
+            
+            String defaultLevel = settings.get("default");
+            if(defaultLevel == null || Settings.isBlank(defaultLevel)) {
+                defaultLevel = "trace";
+            }
+            
+            Map<String, String> rules = new HashMap<>(settings.size());
+            settings.forEach((key, value) -> {
+                if(!Settings.isOption(key) && !Settings.isBlank(value)) {
+                    rules.put(key, value.trim().toLowerCase(Locale.ROOT));
+                }
+            });
+            return new LevelRules(rules, defaultLevel.trim().toLowerCase(Locale.ROOT));
+        }
+        
+        private String get(String name) {
+            return trie.get(name, defaultLevel);
+        }
     }
     
     
     private static abstract class AbstractJFRLoggerFactory {
-        abstract JFRLogger getTrace(String name);
-        abstract JFRLogger getDebug(String name);
-        abstract JFRLogger getInfo(String name);
-        abstract JFRLogger getWarn(String name);
-        abstract JFRLogger getError(String name);
-        abstract JFRLogger getNoOp(String name);
+        abstract JFRLogger getLogger(String name, int levels, Throttle throttle, EventCategory category, Class<?> originClass, Sampler sampler);
     }
     
     private static final class NoOriginLoggerFactory extends AbstractJFRLoggerFactory {
         
-        private static final JFRLogger TRACE_LOGGER = new JFRLogger.Trace();
-        private static final JFRLogger DEBUG_LOGGER = new JFRLogger.Debug();
-        private static final JFRLogger INFO_LOGGER = new JFRLogger.Info();
-        private static final JFRLogger WARN_LOGGER = new JFRLogger.Warn();
-        private static final JFRLogger ERROR_LOGGER = new JFRLogger.Error();
-        private static final JFRLogger NOOP_LOGGER = new JFRLogger();
+        // level masks are cumulative, the bit count identifies the level
+        private static final JFRLogger[] LOGGERS = {
+            new JFRLogger(null, JFRLogger.LEVEL_OFF),
+            new JFRLogger(null, JFRLogger.LEVEL_ERROR),
+            new JFRLogger(null, JFRLogger.LEVEL_WARN),
+            new JFRLogger(null, JFRLogger.LEVEL_INFO),
+            new JFRLogger(null, JFRLogger.LEVEL_DEBUG),
+            new JFRLogger(null, JFRLogger.LEVEL_TRACE)
+        };
 
-        @Override JFRLogger getTrace(String name) { return TRACE_LOGGER; }
-        @Override JFRLogger getDebug(String name) { return DEBUG_LOGGER; }
-        @Override JFRLogger getInfo(String name) { return INFO_LOGGER; }
-        @Override JFRLogger getWarn(String name) { return WARN_LOGGER; }
-        @Override JFRLogger getError(String name) { return ERROR_LOGGER; }
-        @Override JFRLogger getNoOp(String name) { return NOOP_LOGGER; }
-        
-    }
-    
-    private static final class OriginTrackingLoggerFactory extends AbstractJFRLoggerFactory {
-        @Override JFRLogger getTrace(String name) { return new JFRLogger.Trace(name); }
-        @Override JFRLogger getDebug(String name) { return new JFRLogger.Debug(name); }
-        @Override JFRLogger getInfo(String name) { return new JFRLogger.Info(name); }
-        @Override JFRLogger getWarn(String name) { return new JFRLogger.Warn(name); }
-        @Override JFRLogger getError(String name) { return new JFRLogger.Error(name); }
-        @Override JFRLogger getNoOp(String name) { return new JFRLogger(name); }
+        @Override JFRLogger getLogger(String name, int levels, Throttle throttle, EventCategory category, Class<?> originClass, Sampler sampler) { return LOGGERS[Integer.bitCount(levels)]; }
+        
+    }
+    
+    private static final class InstanceLoggerFactory extends AbstractJFRLoggerFactory {
+        
+        private final boolean recordOrigin;
+
+        private InstanceLoggerFactory(boolean recordOrigin) {
+            this.recordOrigin = recordOrigin;
+        }
+        
+        @Override JFRLogger getLogger(String name, int levels, Throttle throttle, EventCategory category, Class<?> originClass, Sampler sampler) {
+            return new JFRLogger(recordOrigin ? name : null, levels, throttle, category, originClass, sampler);
+        }
     }
     
 }
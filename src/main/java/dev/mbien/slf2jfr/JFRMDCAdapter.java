@@ -0,0 +1,160 @@
+package dev.mbien.slf2jfr;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.spi.MDCAdapter;
+
+/**
+ * MDC with copy-on-write contexts.
+ * <p>
+ * Each change replaces the immutable context of the thread. Log events reference the
+ * context string which is rendered once per context, not once per event. Events logged
+ * with the same context share the same string instance, which lets JFR pool it.
+ * <p>
+ * Contexts are not inherited by child threads. {@link #clear()} removes the thread local,
+ * pooled and virtual threads don't keep contexts around.
+ *
+ * @author mbien
+ */
+public final class JFRMDCAdapter implements MDCAdapter {
+
+    private static final ThreadLocal<Context> context = new ThreadLocal<>();
+    private static final ThreadLocal<Map<String, Deque<String>>> deques = new ThreadLocal<>();
+
+    /**
+     * Returns the rendered context of the current thread or null if the context is empty.
+     */
+    static String getContextString() {
+        Context current = context.get();
+        return current != null ? current.toString() : null;
+    }
+
+    @Override
+    public void put(String key, String val) {
+        if(key == null) {
+            throw new IllegalArgumentException("key cannot be null");
+        }
+        Context current = context.get();
+        Map<String, String> map = current != null ? new LinkedHashMap<>(current.map) : new LinkedHashMap<>();
+        map.put(key, val);
+        context.set(new Context(map));
+    }
+
+    @Override
+    public String get(String key) {
+        Context current = context.get();
+        return current != null ? current.map.get(key) : null;
+    }
+
+    @Override
+    public void remove(String key) {
+        Context current = context.get();
+        if(current != null && current.map.containsKey(key)) {
+            Map<String, String> map = new LinkedHashMap<>(current.map);
+            map.remove(key);
+            setContext(map);
+        }
+    }
+
+    @Override
+    public void clear() {
+        context.remove();
+        deques.remove();
+    }
+
+    @Override
+    public Map<String, String> getCopyOfContextMap() {
+        Context current = context.get();
+        return current != null ? new HashMap<>(current.map) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setContextMap(Map contextMap) {
+        setContext(contextMap != null ? new LinkedHashMap<>((Map<String, String>) contextMap) : null);
+    }
+
+    private static void setContext(Map<String, String> map) {
+        if(map == null || map.isEmpty()) {
+            context.remove();
+        }else{
+            context.set(new Context(map));
+        }
+    }
+
+    @Override
+    public void pushByKey(String key, String value) {
+        Map<String, Deque<String>> map = deques.get();
+        if(map == null) {
+            map = new HashMap<>();
+            deques.set(map);
+        }
+        map.computeIfAbsent(key, k -> new ArrayDeque<>()).push(value);
+    }
+
+    @Override
+    public String popByKey(String key) {
+        Map<String, Deque<String>> map = deques.get();
+        if(map != null) {
+            Deque<String> deque = map.get(key);
+            if(deque != null) {
+                return deque.pollFirst();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Deque<String> getCopyOfDequeByKey(String key) {
+        Map<String, Deque<String>> map = deques.get();
+        if(map != null) {
+            Deque<String> deque = map.get(key);
+            if(deque != null) {
+                return new ArrayDeque<>(deque);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void clearDequeByKey(String key) {
+        Map<String, Deque<String>> map = deques.get();
+        if(map != null) {
+            map.remove(key);
+        }
+    }
+
+
+    private static final class Context {
+
+        private final Map<String, String> map;
+        private String string; // only used by the owning thread
+
+        private Context(Map<String, String> map) {
+            this.map = Collections.unmodifiableMap(map);
+        }
+
+        @Override
+        public String toString() {
+            if(string == null) {
+                StringBuilder sb = new StringBuilder();
+                Iterator<Map.Entry<String, String>> it = map.entrySet().iterator();
+                while(it.hasNext()) {
+                    Map.Entry<String, String> entry = it.next();
+                    sb.append(entry.getKey()).append('=').append(entry.getValue());
+                    if(it.hasNext()) {
+                        sb.append(", ");
+                    }
+                }
+                string = sb.toString();
+            }
+            return string;
+        }
+    }
+
+}
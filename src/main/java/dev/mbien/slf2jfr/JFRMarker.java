@@ -0,0 +1,199 @@
+package dev.mbien.slf2jfr;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.slf4j.Marker;
+
+/**
+ * Marker with precomputed level masks.
+ * <p>
+ * A jfrlog.marker.NAME=level rule replaces the logger level for events with this marker:
+ * the levels enabled by a logger are {@code (loggerLevels & allow) | force}. Markers without
+ * rule (and without references to markers with rules) don't change the logger level.
+ * Masks are updated when references are added or removed, not when referenced markers change.
+ *
+ * @author mbien
+ */
+final class JFRMarker implements Marker {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int ALL = JFRLogger.LEVEL_TRACE;
+
+    private final String name;
+    private final int ruleLevels; // -1 if there is no rule
+    private final List<Marker> references = new CopyOnWriteArrayList<>();
+
+    private volatile int allow;
+    private volatile int force;
+    private volatile String label;
+
+    JFRMarker(String name, int ruleLevels) {
+        if(name == null) {
+            throw new IllegalArgumentException("marker name cannot be null");
+        }
+        this.name = name;
+        this.ruleLevels = ruleLevels;
+        update();
+    }
+
+    /**
+     * Returns the levels enabled for an event with the given marker.
+     */
+    static int levels(int loggerLevels, Marker marker) {
+        if(marker instanceof JFRMarker) {
+            JFRMarker jfrMarker = (JFRMarker) marker;
+            return (loggerLevels & jfrMarker.allow) | jfrMarker.force;
+        }
+        return loggerLevels;
+    }
+
+    static String label(Marker marker) {
+        if(marker instanceof JFRMarker) {
+            return ((JFRMarker) marker).label;
+        }
+        return marker != null ? marker.toString() : null;
+    }
+
+    static String label(List<Marker> markers) {
+        if(markers == null || markers.isEmpty()) {
+            return null;
+        }else if(markers.size() == 1) {
+            return label(markers.get(0));
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Marker marker : markers) {
+            if(sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(label(marker));
+        }
+        return sb.toString();
+    }
+
+    private synchronized void update() {
+
+        int newAllow = ALL;
+        int newForce = 0;
+
+        if(ruleLevels >= 0) {
+            newAllow = 0;
+            newForce = ruleLevels;
+        }else{
+            // the most permissive rule of the references wins
+            for (Marker reference : references) {
+                if(reference instanceof JFRMarker && ((JFRMarker) reference).allow != ALL) {
+                    newAllow = 0;
+                    newForce |= ((JFRMarker) reference).force;
+                }
+            }
+        }
+
+        allow = newAllow;
+        force = newForce;
+        label = references.isEmpty() ? name : toString();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void add(Marker reference) {
+        if(reference == null) {
+            throw new IllegalArgumentException("A null value cannot be added to a Marker as reference.");
+        }
+        if(this.contains(reference) || reference.contains(this)) {
+            return; // no duplicates and no cycles
+        }
+        references.add(reference);
+        update();
+    }
+
+    @Override
+    public boolean remove(Marker reference) {
+        boolean removed = references.remove(reference);
+        if(removed) {
+            update();
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean hasReferences() {
+        return !references.isEmpty();
+    }
+
+    @Override
+    @Deprecated
+    public boolean hasChildren() {
+        return hasReferences();
+    }
+
+    @Override
+    public Iterator<Marker> iterator() {
+        return references.iterator();
+    }
+
+    @Override
+    public boolean contains(Marker other) {
+        if(other == null) {
+            throw new IllegalArgumentException("Other cannot be null");
+        }
+        if(this.equals(other)) {
+            return true;
+        }
+        for (Marker reference : references) {
+            if(reference.contains(other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(String name) {
+        if(name == null) {
+            throw new IllegalArgumentException("Other cannot be null");
+        }
+        if(this.name.equals(name)) {
+            return true;
+        }
+        for (Marker reference : references) {
+            if(reference.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || (obj instanceof Marker && name.equals(((Marker) obj).getName()));
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    // same format as slf4j's BasicMarker
+    @Override
+    public String toString() {
+        if(references.isEmpty()) {
+            return name;
+        }
+        StringBuilder sb = new StringBuilder(name).append(" [ ");
+        Iterator<Marker> it = references.iterator();
+        while(it.hasNext()) {
+            sb.append(it.next().getName());
+            if(it.hasNext()) {
+                sb.append(", ");
+            }
+        }
+        return sb.append(" ]").toString();
+    }
+
+}
@@ -0,0 +1,47 @@
+package dev.mbien.slf2jfr;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.IMarkerFactory;
+import org.slf4j.Marker;
+
+/**
+ * Creates {@link JFRMarker}s and resolves their jfrlog.marker.* level rules.
+ * Marker names are case sensitive.
+ *
+ * @author mbien
+ */
+public final class JFRMarkerFactory implements IMarkerFactory {
+
+    private final ConcurrentHashMap<String, Marker> markers = new ConcurrentHashMap<>();
+    private final Map<String, String> settings = Settings.get();
+
+    @Override
+    public Marker getMarker(String name) {
+        if(name == null) {
+            throw new IllegalArgumentException("Marker name cannot be null");
+        }
+        return markers.computeIfAbsent(name, this::getDetachedMarker);
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return name != null && markers.containsKey(name);
+    }
+
+    @Override
+    public boolean detachMarker(String name) {
+        return name != null && markers.remove(name) != null;
+    }
+
+    @Override
+    public Marker getDetachedMarker(String name) {
+        String level = settings.get(Settings.MARKER_PREFIX + name);
+        if(level == null || Settings.isBlank(level)) {
+            return new JFRMarker(name, -1);
+        }
+        return new JFRMarker(name, JFRLogger.parseLevel(level.trim().toLowerCase(Locale.ROOT)));
+    }
+
+}
@@ -0,0 +1,49 @@
+package dev.mbien.slf2jfr;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Keeps the log event types unregistered until the flight recorder is initialized or a
+ * recording starts (jfrlog.lazyBootstrap). Loggers behave as if all levels were off
+ * until then, the jdk.jfr module stays mostly out of application startup.
+ * <p>
+ * Options which register own event types at startup (e.g. jfrlog.statistics,
+ * jfrlog.eventCategories or jfrlog.fallback) initialize JFR regardless.
+ *
+ * @author mbien
+ */
+final class LazyBootstrap {
+
+    static final boolean ENABLED = Settings.getBoolean("lazyBootstrap", false);
+
+    private static volatile boolean started;
+
+    static {
+        if(ENABLED) {
+            // notifies immediately if the recorder is initialized already
+            FlightRecorder.addListener(new FlightRecorderListener() {
+                @Override public void recorderInitialized(FlightRecorder recorder) {
+                    started = true;
+                }
+                @Override public void recordingStateChanged(Recording recording) {
+                    if(recording.getState() == RecordingState.RUNNING) {
+                        started = true;
+                    }
+                }
+            });
+        }
+    }
+
+    private LazyBootstrap() {}
+
+    /**
+     * True once the log event types may be registered.
+     */
+    static boolean isStarted() {
+        return started;
+    }
+
+}
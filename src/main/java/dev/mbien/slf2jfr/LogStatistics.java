@@ -0,0 +1,81 @@
+package dev.mbien.slf2jfr;
+
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Counters of the bridge itself (jfrlog.statistics), reported by the periodic
+ * {@link Statistics} event. The counters are striped, logging threads don't contend
+ * on them. Nothing is counted if disabled.
+ *
+ * @author mbien
+ */
+final class LogStatistics {
+
+    static final boolean ENABLED = Settings.getBoolean("statistics", false);
+
+    // indexed by the trailing zeros of the level bit
+    private static final LongAdder[] committed = {
+        new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()
+    };
+
+    private static final LongAdder suppressed = new LongAdder();
+    private static final LongAdder formatTime = new LongAdder();
+    private static final LongAdder throwableTime = new LongAdder();
+    private static final LongAdder messageChars = new LongAdder();
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder cacheMisses = new LongAdder();
+
+    static {
+        if(ENABLED) {
+            FlightRecorder.addPeriodicEvent(Statistics.class, LogStatistics::report);
+        }
+    }
+
+    private LogStatistics() {}
+
+    static void committed(JFRLogEvent event) {
+        committed[Integer.numberOfTrailingZeros(event.level())].increment();
+        String text = event.message != null ? event.message : event.pattern;
+        if(text != null) {
+            messageChars.add(text.length());
+        }
+    }
+
+    static void suppressed() {
+        suppressed.increment();
+    }
+
+    static void formatted(long start) {
+        formatTime.add(System.nanoTime() - start);
+    }
+
+    static void throwableRecorded(long start) {
+        throwableTime.add(System.nanoTime() - start);
+    }
+
+    static void cacheHit() {
+        cacheHits.increment();
+    }
+
+    static void cacheMiss() {
+        cacheMisses.increment();
+    }
+
+    private static void report() {
+        Statistics event = new Statistics();
+        event.trace = committed[0].sumThenReset();
+        event.debug = committed[1].sumThenReset();
+        event.info  = committed[2].sumThenReset();
+        event.warn  = committed[3].sumThenReset();
+        event.error = committed[4].sumThenReset();
+        event.suppressed = suppressed.sumThenReset();
+        event.formatTime = formatTime.sumThenReset();
+        event.throwableTime = throwableTime.sumThenReset();
+        event.messageChars = messageChars.sumThenReset();
+        event.cacheHits = cacheHits.sumThenReset();
+        event.cacheMisses = cacheMisses.sumThenReset();
+        event.commit();
+    }
+
+}
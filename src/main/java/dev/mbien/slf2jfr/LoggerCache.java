@@ -0,0 +1,129 @@
+package dev.mbien.slf2jfr;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Bounded logger cache with weakly referenced loggers.
+ * <p>
+ * Loggers which aren't referenced anymore (e.g. the class holding it has been unloaded)
+ * are collected and removed from the cache. If the cache is full, an arbitrary entry
+ * is evicted to make room for the new logger.
+ *
+ * @author mbien
+ */
+final class LoggerCache {
+
+    private final ConcurrentHashMap<String, Entry> map;
+    private final ReferenceQueue<JFRLogger> queue = new ReferenceQueue<>();
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    LoggerCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.map = new ConcurrentHashMap<>(Math.min(maxSize, 64));
+    }
+
+    /**
+     * Returns the cached logger or null.
+     */
+    JFRLogger get(String name) {
+        Entry entry = map.get(name);
+        if(entry != null) {
+            JFRLogger logger = entry.get();
+            if(logger != null) {
+                hits.increment();
+                return logger;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches the logger and returns it. Returns the previously cached logger
+     * instead if a logger with the same name has been cached concurrently.
+     */
+    JFRLogger put(String name, JFRLogger logger) {
+
+        expunge();
+
+        Entry entry = map.compute(name, (key, old) ->
+                old != null && old.get() != null ? old : new Entry(key, logger, queue));
+
+        if(map.size() > maxSize) {
+            evict(entry);
+        }
+
+        JFRLogger cached = entry.get();
+        return cached != null ? cached : logger;
+    }
+
+    private void expunge() {
+        Reference<? extends JFRLogger> ref;
+        while((ref = queue.poll()) != null) {
+            Entry entry = (Entry) ref;
+            if(map.remove(entry.name, entry)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private void evict(Entry keep) {
+        Iterator<Entry> it = map.values().iterator();
+        while(map.size() > maxSize && it.hasNext()) {
+            Entry entry = it.next();
+            if(entry != keep && map.remove(entry.name, entry)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Calls the action for each cached logger which hasn't been collected yet.
+     */
+    void forEach(BiConsumer<String, JFRLogger> action) {
+        map.forEach((name, entry) -> {
+            JFRLogger logger = entry.get();
+            if(logger != null) {
+                action.accept(name, logger);
+            }
+        });
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+
+    private static final class Entry extends WeakReference<JFRLogger> {
+
+        private final String name;
+
+        private Entry(String name, JFRLogger logger, ReferenceQueue<JFRLogger> queue) {
+            super(logger, queue);
+            this.name = name;
+        }
+    }
+
+}
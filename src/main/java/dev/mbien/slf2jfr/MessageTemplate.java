@@ -0,0 +1,622 @@
+package dev.mbien.slf2jfr;
+
+import java.text.DateFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Formattable;
+import java.util.Formatter;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingFormatArgumentException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * A log message format which has been parsed once and can be applied to arguments
+ * any number of times.
+ * <p>
+ * slf4j is supposed to support three different msg formats at the same time
+ * without knowing which format is in the string:
+ * <ul>
+ * <li>the slf4j format is based on simple {} placeholders</li>
+ * <li>MessageFormat uses indexed placeholders i.e. {0} {1}</li>
+ * <li>and String.format uses %x tokens</li>
+ * </ul>
+ * The format is classified once when the template is compiled. Compiled templates
+ * are immutable and kept in a small set-associative cache.
+ *
+ * @author mbien
+ */
+abstract class MessageTemplate {
+
+    private static final Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+    private static final String ARG_PLACEHOLDER = "{}";
+
+    // set-associative: patterns which hash to the same set share its ways, a miss evicts
+    // the oldest entry of the set. Races are benign since templates are immutable (final fields).
+    private static final int CACHE_WAYS = 4;
+    private static final int CACHE_SETS = 256; // power of two
+    private static final MessageTemplate[] cache = new MessageTemplate[CACHE_SETS * CACHE_WAYS];
+
+    private static final int BUILDER_CAPACITY = 256;
+    private static final int MAX_BUILDER_CAPACITY = 8 * 1024;
+    private static final ThreadLocal<Builder> builder = ThreadLocal.withInitial(Builder::new);
+
+    private static final MessageTemplate NULL = new Plain(null);
+
+    // formatting stops one char after jfrlog.maxMessageLength, the logger cuts off the rest
+    private static final int MAX_LENGTH = maxLength(Settings.getInt("maxMessageLength", 0));
+
+    final String pattern;
+
+    private MessageTemplate(String pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * Returns the compiled template for the given pattern, compiles it if it isn't cached.
+     */
+    static MessageTemplate of(String pattern) {
+
+        if(pattern == null) {
+            return NULL;
+        }
+
+        int hash = pattern.hashCode();
+        int set = ((hash ^ (hash >>> 16)) & (CACHE_SETS-1)) * CACHE_WAYS;
+
+        for(int way = set; way < set + CACHE_WAYS; way++) {
+            MessageTemplate template = cache[way];
+            if(template == null) {
+                break;
+            }else if(pattern.equals(template.pattern)) {
+                return template;
+            }
+        }
+
+        MessageTemplate template = compile(pattern);
+        System.arraycopy(cache, set, cache, set + 1, CACHE_WAYS - 1);
+        cache[set] = template;
+        return template;
+    }
+
+    static MessageTemplate compile(String pattern) {
+
+        if(pattern == null) {
+            return NULL;
+        }
+
+        if(pattern.contains(ARG_PLACEHOLDER)) {
+            return Slf4j.parse(pattern);
+        }
+
+        if(pattern.indexOf('{') != -1) {
+            MessageTemplate indexed = Indexed.parse(pattern);
+            if(indexed != null) {
+                return indexed;
+            }
+        }
+
+        if(pattern.indexOf('%') != -1) {
+            return Printf.parse(pattern);
+        }
+
+        return new Plain(pattern);
+    }
+
+    /**
+     * Returns true if the message can be formatted later from the pattern and the
+     * {@link #argToString(Object) String representation} of its arguments.
+     */
+    boolean isDeferrable() {
+        return false;
+    }
+
+    /**
+     * String representation of an argument as used by the slf4j format.
+     */
+    static String argToString(Object arg) {
+        if(arg == null) {
+            return "null";
+        }else if(arg instanceof String) {
+            return (String) arg;
+        }else if(arg.getClass().isArray()) {
+            return MessageFormatter.format(ARG_PLACEHOLDER, arg).getMessage();
+        }
+        try{
+            String str = arg.toString();
+            return str != null ? str : "null";
+        }catch(Throwable t) {
+            return "[FAILED toString()]";
+        }
+    }
+
+    abstract String format(Object arg);
+
+    abstract String format(Object arg1, Object arg2);
+
+    abstract String format(Object[] args);
+
+
+    private static int maxLength(int maxMessageLength) {
+        return maxMessageLength > 0 ? maxMessageLength + 1 : Integer.MAX_VALUE;
+    }
+
+    // appends as much as fits into MAX_LENGTH
+    private static void append(StringBuilder sb, CharSequence str, int start, int end) {
+        int room = MAX_LENGTH - sb.length();
+        if(room > 0) {
+            sb.append(str, start, end - start > room ? start + room : end);
+        }
+    }
+
+    private static void append(StringBuilder sb, String str) {
+        append(sb, str, 0, str.length());
+    }
+
+    private static Object arg(int index, Object arg1, Object arg2, Object[] args) {
+        if(args != null) {
+            return args[index];
+        }
+        return index == 0 ? arg1 : arg2;
+    }
+
+    private static Builder acquireBuilder() {
+        Builder b = builder.get();
+        if(b.inUse) { // toString() of an argument is logging too
+            return new Builder();
+        }
+        b.inUse = true;
+        return b;
+    }
+
+
+    /**
+     * Per-thread StringBuilder, reused as long it doesn't grow too large.
+     */
+    private static final class Builder {
+
+        private final StringBuilder sb = new StringBuilder(BUILDER_CAPACITY);
+        private Formatter formatter;
+        private boolean inUse;
+
+        private Formatter formatter() {
+            if(formatter == null) {
+                formatter = new Formatter(sb, locale);
+            }
+            return formatter;
+        }
+
+        private String release() {
+            String str = sb.toString();
+            if(sb.capacity() > MAX_BUILDER_CAPACITY) {
+                builder.remove();
+            }else{
+                sb.setLength(0);
+                inUse = false;
+            }
+            return str;
+        }
+
+        private void discard() {
+            sb.setLength(0);
+            inUse = false;
+        }
+    }
+
+    /**
+     * No placeholders, the pattern is the message.
+     */
+    private static final class Plain extends MessageTemplate {
+
+        private Plain(String pattern) {
+            super(pattern);
+        }
+
+        @Override String format(Object arg) { return pattern; }
+        @Override String format(Object arg1, Object arg2) { return pattern; }
+        @Override String format(Object[] args) { return pattern; }
+    }
+
+    /**
+     * slf4j {} placeholders, behaves exactly like {@link MessageFormatter}.
+     */
+    private static final class Slf4j extends MessageTemplate {
+
+        // tokens in the order the slf4j formatter would find them
+        private final String[] literals; // text to append before the token (escapes resolved)
+        private final boolean[] isArg;   // {} placeholder or an escaped \{}
+        private final int[] ends;        // pattern index after the token
+
+        private Slf4j(String pattern, String[] literals, boolean[] isArg, int[] ends) {
+            super(pattern);
+            this.literals = literals;
+            this.isArg = isArg;
+            this.ends = ends;
+        }
+
+        private static Slf4j parse(String pattern) {
+
+            List<String> literals = new ArrayList<>();
+            List<Boolean> isArg = new ArrayList<>();
+            List<Integer> ends = new ArrayList<>();
+
+            int i = 0;
+            int j;
+            while((j = pattern.indexOf(ARG_PLACEHOLDER, i)) != -1) {
+                boolean escaped = j >= 1 && pattern.charAt(j-1) == '\\';
+                boolean doubleEscaped = j >= 2 && pattern.charAt(j-2) == '\\';
+                if(escaped && !doubleEscaped) {
+                    literals.add(pattern.substring(i, j-1) + '{');
+                    isArg.add(false);
+                    i = j+1;
+                }else{
+                    literals.add(pattern.substring(i, escaped ? j-1 : j));
+                    isArg.add(true);
+                    i = j+2;
+                }
+                ends.add(i);
+            }
+
+            boolean[] args = new boolean[isArg.size()];
+            int[] end = new int[ends.size()];
+            for(int n = 0; n < args.length; n++) {
+                args[n] = isArg.get(n);
+                end[n] = ends.get(n);
+            }
+            return new Slf4j(pattern, literals.toArray(new String[0]), args, end);
+        }
+
+        @Override
+        boolean isDeferrable() {
+            return true;
+        }
+
+        @Override
+        String format(Object arg) {
+            return format(arg, null, null, arg instanceof Throwable ? 0 : 1);
+        }
+
+        @Override
+        String format(Object arg1, Object arg2) {
+            return format(arg1, arg2, null, arg2 instanceof Throwable ? 1 : 2);
+        }
+
+        @Override
+        String format(Object[] args) {
+            int count = args.length;
+            if(count > 0 && args[count-1] instanceof Throwable) {
+                count--;
+            }
+            return format(null, null, args, count);
+        }
+
+        private String format(Object arg1, Object arg2, Object[] args, int count) {
+
+            if(count == 0) {
+                return pattern;
+            }
+
+            Builder b = acquireBuilder();
+            StringBuilder sb = b.sb;
+
+            int consumed = 0;
+            int rest = 0;
+            for(int token = 0; token < literals.length && consumed < count && sb.length() < MAX_LENGTH; token++) {
+                append(sb, literals[token]);
+                if(isArg[token]) {
+                    append(sb, argToString(arg(consumed++, arg1, arg2, args)));
+                }
+                rest = ends[token];
+            }
+            append(sb, pattern, rest, pattern.length());
+
+            return b.release();
+        }
+    }
+
+    /**
+     * MessageFormat {0} placeholders without sub-formats, behaves like {@link MessageFormat}.
+     */
+    private static final class Indexed extends MessageTemplate {
+
+        // sentinel is used to let MessageFormat resolve quotes while splitting the pattern
+        private static final char SENTINEL = '\uFFFF';
+
+        private static final ThreadLocal<NumberFormat> numberFormat
+                = ThreadLocal.withInitial(() -> NumberFormat.getInstance(locale));
+        private static final ThreadLocal<DateFormat> dateFormat
+                = ThreadLocal.withInitial(() -> DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale));
+
+        private final String[] literals; // literals[n] is appended before argument n
+        private final int[] indices;     // argument index of placeholder n
+        private final String tail;
+
+        private Indexed(String pattern, String[] literals, int[] indices, String tail) {
+            super(pattern);
+            this.literals = literals;
+            this.indices = indices;
+            this.tail = tail;
+        }
+
+        private static MessageTemplate parse(String pattern) {
+
+            MessageFormat mf;
+            try{
+                mf = new MessageFormat(pattern, locale);
+            }catch(IllegalArgumentException ex) {
+                return null;
+            }
+
+            Format[] formats = mf.getFormats();
+            if(formats.length == 0) {
+                return null;
+            }
+
+            for (Format format : formats) {
+                if(format != null) {
+                    return new WithSubformats(pattern, mf);
+                }
+            }
+            if(pattern.indexOf(SENTINEL) != -1) {
+                return new WithSubformats(pattern, mf);
+            }
+
+            Object[] sentinels = new Object[mf.getFormatsByArgumentIndex().length];
+            for (int i = 0; i < sentinels.length; i++) {
+                sentinels[i] = SENTINEL + Integer.toString(i) + SENTINEL;
+            }
+            String split = mf.format(sentinels);
+
+            String[] literals = new String[formats.length];
+            int[] indices = new int[formats.length];
+
+            int i = 0;
+            for(int n = 0; n < formats.length; n++) {
+                int start = split.indexOf(SENTINEL, i);
+                int end = split.indexOf(SENTINEL, start+1);
+                literals[n] = split.substring(i, start);
+                indices[n] = Integer.parseInt(split.substring(start+1, end));
+                i = end+1;
+            }
+            return new Indexed(pattern, literals, indices, split.substring(i));
+        }
+
+        @Override
+        String format(Object arg) {
+            return format(arg, null, null, 1);
+        }
+
+        @Override
+        String format(Object arg1, Object arg2) {
+            return format(arg1, arg2, null, 2);
+        }
+
+        @Override
+        String format(Object[] args) {
+            return format(null, null, args, args.length);
+        }
+
+        private String format(Object arg1, Object arg2, Object[] args, int count) {
+
+            Builder b = acquireBuilder();
+            StringBuilder sb = b.sb;
+
+            try{
+                for(int n = 0; n < literals.length && sb.length() < MAX_LENGTH; n++) {
+                    append(sb, literals[n]);
+                    int index = indices[n];
+                    if(index >= count) {
+                        sb.append('{').append(index).append('}');
+                    }else{
+                        append(sb, formatArg(arg(index, arg1, arg2, args)));
+                    }
+                }
+                append(sb, tail);
+            }catch(RuntimeException ex) {
+                b.discard();
+                return pattern;
+            }
+
+            return b.release();
+        }
+
+        private static String formatArg(Object arg) {
+            if(arg == null) {
+                return "null";
+            }else if(arg instanceof String) {
+                return (String) arg;
+            }else if(arg instanceof Number) {
+                return numberFormat.get().format(arg);
+            }else if(arg instanceof Date) {
+                return dateFormat.get().format(arg);
+            }else{
+                return arg.toString();
+            }
+        }
+    }
+
+    /**
+     * MessageFormat with sub-formats like {0,number,#.##}, the parsed MessageFormat
+     * is cloned since it isn't thread safe.
+     */
+    private static final class WithSubformats extends MessageTemplate {
+
+        private final MessageFormat prototype;
+
+        private WithSubformats(String pattern, MessageFormat prototype) {
+            super(pattern);
+            this.prototype = prototype;
+        }
+
+        @Override
+        String format(Object arg) {
+            return format(new Object[] {arg});
+        }
+
+        @Override
+        String format(Object arg1, Object arg2) {
+            return format(new Object[] {arg1, arg2});
+        }
+
+        @Override
+        String format(Object[] args) {
+            try{
+                return ((MessageFormat)prototype.clone()).format(args);
+            }catch(IllegalArgumentException ex) {
+                return pattern;
+            }
+        }
+    }
+
+    /**
+     * String.format %x tokens, behaves like {@link Formatter}. The format specifiers are
+     * parsed once, each specifier is applied to its argument on its own (%s and %d directly).
+     * Falls back to the pattern if the arguments don't match.
+     */
+    private static final class Printf extends MessageTemplate {
+
+        // same syntax as java.util.Formatter
+        private static final Pattern SPECIFIER
+                = Pattern.compile("%(\\d+\\$)?([-#+ 0,(<]*)?(\\d+)?(\\.\\d+)?([tT])?([a-zA-Z%])");
+
+        private static final boolean ASCII_DIGITS = DecimalFormatSymbols.getInstance(locale).getZeroDigit() == '0';
+
+        private static final byte FORMAT = 0;  // %x, applied via Formatter
+        private static final byte STRING = 1;  // plain %s
+        private static final byte DECIMAL = 2; // plain %d
+
+        private final String[] literals; // literals[n] is appended before specifier n
+        private final String[] specs;    // specifier n without argument index
+        private final byte[] kinds;
+        private final int[] indices;     // argument index of specifier n, -1 if missing
+        private final String tail;
+
+        private Printf(String pattern, String[] literals, String[] specs, byte[] kinds, int[] indices, String tail) {
+            super(pattern);
+            this.literals = literals;
+            this.specs = specs;
+            this.kinds = kinds;
+            this.indices = indices;
+            this.tail = tail;
+        }
+
+        private static MessageTemplate parse(String pattern) {
+
+            // validates the pattern, Formatter parses all specifiers before it looks at arguments
+            try{
+                new Formatter(new StringBuilder(), locale).format(pattern);
+            }catch(MissingFormatArgumentException ex) {
+                // valid, needs arguments
+            }catch(IllegalFormatException ex) {
+                return new Plain(pattern);
+            }
+
+            List<String> literals = new ArrayList<>();
+            List<String> specs = new ArrayList<>();
+            List<Integer> indices = new ArrayList<>();
+
+            StringBuilder literal = new StringBuilder();
+            int ordinary = -1;
+            int last = -1;
+            int i = 0;
+
+            Matcher m = SPECIFIER.matcher(pattern);
+            while(m.find()) {
+                literal.append(pattern, i, m.start());
+                i = m.end();
+
+                String flags = m.group(2) != null ? m.group(2) : "";
+                String spec = "%" + flags.replace("<", "") + opt(m.group(3)) + opt(m.group(4)) + opt(m.group(5)) + m.group(6);
+
+                char conversion = m.group(6).charAt(0);
+                if(conversion == '%' || conversion == 'n') { // no argument
+                    literal.append(String.format(locale, spec));
+                    continue;
+                }
+
+                if(m.group(1) != null) {
+                    last = Integer.parseInt(m.group(1).substring(0, m.group(1).length()-1)) - 1;
+                }else if(flags.indexOf('<') == -1) {
+                    last = ++ordinary;
+                }
+                literals.add(literal.toString());
+                literal.setLength(0);
+                specs.add(spec);
+                indices.add(last);
+            }
+            literal.append(pattern, i, pattern.length());
+
+            byte[] kinds = new byte[specs.size()];
+            int[] index = new int[indices.size()];
+            for(int n = 0; n < kinds.length; n++) {
+                String spec = specs.get(n);
+                kinds[n] = spec.equals("%s") ? STRING : spec.equals("%d") && ASCII_DIGITS ? DECIMAL : FORMAT;
+                index[n] = indices.get(n);
+            }
+            return new Printf(pattern, literals.toArray(new String[0]), specs.toArray(new String[0]), kinds, index, literal.toString());
+        }
+
+        private static String opt(String group) {
+            return group != null ? group : "";
+        }
+
+        @Override
+        String format(Object arg) {
+            return format(arg, null, null, 1);
+        }
+
+        @Override
+        String format(Object arg1, Object arg2) {
+            return format(arg1, arg2, null, 2);
+        }
+
+        @Override
+        String format(Object[] args) {
+            return format(null, null, args, args.length);
+        }
+
+        private String format(Object arg1, Object arg2, Object[] args, int count) {
+
+            if(specs.length == 0) { // only %% or %n
+                return tail;
+            }
+
+            Builder b = acquireBuilder();
+            StringBuilder sb = b.sb;
+
+            try{
+                for(int n = 0; n < specs.length && sb.length() < MAX_LENGTH; n++) {
+                    append(sb, literals[n]);
+                    int index = indices[n];
+                    if(index < 0 || index >= count) {
+                        b.discard();
+                        return pattern;
+                    }
+                    Object arg = arg(index, arg1, arg2, args);
+                    if(kinds[n] == STRING && !(arg instanceof Formattable)) {
+                        append(sb, String.valueOf(arg));
+                    }else if(kinds[n] == DECIMAL && (arg instanceof Integer || arg instanceof Long
+                                                  || arg instanceof Short || arg instanceof Byte)) {
+                        append(sb, Long.toString(((Number) arg).longValue()));
+                    }else{
+                        b.formatter().format(specs[n], arg);
+                    }
+                }
+                append(sb, tail);
+            }catch(RuntimeException ex) {
+                b.discard();
+                return pattern;
+            }
+
+            return b.release();
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package dev.mbien.slf2jfr;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer single-consumer ring buffer (Vyukov).
+ * <p>
+ * Each slot has a sequence number which tells producers and the consumer whether the
+ * slot is free or published. Producers claim a position with one CAS and never wait
+ * for the consumer, {@link #offer} fails if the ring is full.
+ *
+ * @author mbien
+ */
+final class MpscRing<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong(); // next producer position
+    private long head;                                // consumer position, single thread
+
+    MpscRing(int capacity) {
+        if(Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: "+capacity);
+        }
+        mask = capacity-1;
+        slots = new AtomicReferenceArray<>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds the element, returns false if the ring is full.
+     */
+    boolean offer(E element) {
+        long pos = tail.get();
+        while(true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if(diff == 0) {
+                if(tail.compareAndSet(pos, pos+1)) {
+                    slots.lazySet(index, element);
+                    sequences.lazySet(index, pos+1); // publish
+                    return true;
+                }
+                pos = tail.get();
+            }else if(diff < 0) {
+                return false; // full
+            }else{
+                pos = tail.get(); // claimed by another producer
+            }
+        }
+    }
+
+    /**
+     * Removes the next element or returns null if there is none. Consumer thread only.
+     */
+    E poll() {
+        int index = (int) head & mask;
+        if(sequences.get(index) != head+1) {
+            return null; // empty or not published yet
+        }
+        E element = slots.get(index);
+        slots.lazySet(index, null);
+        sequences.lazySet(index, head + mask + 1); // free for the next round
+        head++;
+        return element;
+    }
+
+}
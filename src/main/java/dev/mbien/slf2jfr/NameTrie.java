@@ -0,0 +1,145 @@
+package dev.mbien.slf2jfr;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps logger name prefixes to values, the most specific prefix wins.
+ * <p>
+ * Names are split into segments at '.' and '$', prefixes only match whole segments:
+ * a rule for "com.foo" applies to "com.foo" and "com.foo.Bar" but not to "com.foobar".
+ * Lookups cost O(segments) and don't allocate. The trie is immutable after construction.
+ *
+ * @author mbien
+ */
+final class NameTrie<V> {
+
+    private final Node<V> root;
+    private final boolean empty;
+
+    NameTrie(Map<String, V> rules) {
+        root = new Node<>();
+        for (Map.Entry<String, V> rule : rules.entrySet()) {
+            if(!rule.getKey().isEmpty() && rule.getValue() != null) {
+                root.put(rule.getKey(), 0, rule.getValue());
+            }
+        }
+        root.freeze();
+        empty = rules.isEmpty();
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Returns the value of the most specific prefix of the given name or the default value.
+     */
+    V get(String name, V defaultValue) {
+
+        V value = defaultValue;
+        Node<V> node = root;
+
+        int start = 0;
+        int length = name.length();
+        while(start <= length) {
+            int end = nextSeparator(name, start);
+            node = node.child(name, start, end);
+            if(node == null) {
+                break;
+            }
+            if(node.value != null) {
+                value = node.value;
+            }
+            start = end+1;
+        }
+        return value;
+    }
+
+    private static int nextSeparator(String name, int start) {
+        for (int i = start; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if(c == '.' || c == '$') {
+                return i;
+            }
+        }
+        return name.length();
+    }
+
+    // same as String.hashCode() of the substring
+    private static int hash(String name, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + name.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+
+    private static final class Node<V> {
+
+        private V value;
+
+        // used while building
+        private Map<String, Node<V>> children = new HashMap<>();
+
+        // open addressing table, power of two sized
+        private String[] keys;
+        private int[] hashes;
+        private Node<V>[] nodes;
+
+        private void put(String name, int start, V value) {
+            int end = nextSeparator(name, start);
+            Node<V> child = children.computeIfAbsent(name.substring(start, end), k -> new Node<>());
+            if(end == name.length()) {
+                child.value = value;
+            }else{
+                child.put(name, end+1, value);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void freeze() {
+
+            int size = 1;
+            while(size < children.size() * 2) {
+                size <<= 1;
+            }
+
+            keys = new String[size];
+            hashes = new int[size];
+            nodes = new Node[size];
+
+            for (Map.Entry<String, Node<V>> entry : children.entrySet()) {
+                String key = entry.getKey();
+                int hash = hash(key, 0, key.length());
+                int slot = hash & (size-1);
+                while(keys[slot] != null) {
+                    slot = (slot+1) & (size-1);
+                }
+                keys[slot] = key;
+                hashes[slot] = hash;
+                nodes[slot] = entry.getValue();
+                entry.getValue().freeze();
+            }
+            children = null;
+        }
+
+        private Node<V> child(String name, int start, int end) {
+
+            int hash = hash(name, start, end);
+            int length = end - start;
+            int mask = keys.length-1;
+
+            for (int slot = hash & mask; keys[slot] != null; slot = (slot+1) & mask) {
+                String key = keys[slot];
+                if(hashes[slot] == hash && key.length() == length
+                        && name.regionMatches(start, key, 0, length)) {
+                    return nodes[slot];
+                }
+            }
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package dev.mbien.slf2jfr;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.SettingControl;
+
+/**
+ * JFR setting which narrows log events to loggers with the given name prefixes, e.g.
+ * {@code recording.enable("log.Debug").with("origin", "com.acme.billing, com.acme.shop")}.
+ * <p>
+ * Prefixes match whole name segments, same as level rules. Concurrent recordings are
+ * merged: the union of all prefixes is recorded, a recording without filter records all.
+ * Events without origin (jfrlog.recordOrigin=false) are never filtered.
+ *
+ * @author mbien
+ */
+@Name("dev.mbien.jfrlog.Origin")
+@Label("Origin")
+@Description("Filters log events by logger name prefix")
+final class OriginFilter extends SettingControl {
+
+    private static final String ALL = "";
+
+    private volatile String value = ALL;
+    private volatile NameTrie<Boolean> prefixes = null; // null records all
+
+    boolean accept(String origin) {
+        NameTrie<Boolean> trie = prefixes;
+        return trie == null || origin == null || trie.get(origin, Boolean.FALSE);
+    }
+
+    @Override
+    public String combine(Set<String> values) {
+        Set<String> union = new LinkedHashSet<>();
+        for (String value : values) {
+            Set<String> parsed = parse(value);
+            if(parsed.isEmpty()) {
+                return ALL;
+            }
+            union.addAll(parsed);
+        }
+        return String.join(", ", union);
+    }
+
+    @Override
+    public void setValue(String value) {
+        Set<String> parsed = parse(value);
+        if(parsed.isEmpty()) {
+            this.prefixes = null;
+        }else{
+            Map<String, Boolean> rules = new HashMap<>();
+            for (String prefix : parsed) {
+                rules.put(prefix, Boolean.TRUE);
+            }
+            this.prefixes = new NameTrie<>(rules);
+        }
+        this.value = value;
+    }
+
+    @Override
+    public String getValue() {
+        return value;
+    }
+
+    private static Set<String> parse(String value) {
+        if(value == null || Settings.isBlank(value)) {
+            return Collections.emptySet();
+        }
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (String prefix : value.split(",")) {
+            prefix = prefix.trim();
+            if(!prefix.isEmpty()) {
+                prefixes.add(prefix);
+            }
+        }
+        return prefixes;
+    }
+
+}
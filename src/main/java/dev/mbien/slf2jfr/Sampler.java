@@ -0,0 +1,139 @@
+package dev.mbien.slf2jfr;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.helpers.Reporter;
+
+/**
+ * Records only one in N events per level of a logger (jfrlog.sample.LEVEL[.PREFIX]=1/N).
+ * <p>
+ * The decision is random and uses the thread local generator, logging threads share no
+ * state. Sampled events carry the rate in their sampleRate field, counts can be scaled back up.
+ *
+ * @author mbien
+ */
+final class Sampler {
+
+    private static final String[] LEVEL_NAMES = {"trace", "debug", "info", "warn", "error"};
+
+    // per level, indexed by the trailing zeros of the level bit; null without rules
+    private static final Rules[] rules = parse(Settings.get());
+
+    private final int[] rates; // 0 or 1: record all
+
+    private Sampler(int[] rates) {
+        this.rates = rates;
+    }
+
+    static boolean isEnabled() {
+        return rules != null;
+    }
+
+    /**
+     * Returns the sampler of the given logger name, null if no level of it is sampled.
+     */
+    static Sampler of(String name) {
+        if(rules == null) {
+            return null;
+        }
+        int[] rates = new int[LEVEL_NAMES.length];
+        boolean sampled = false;
+        for (int i = 0; i < rates.length; i++) {
+            if(rules[i] != null) {
+                rates[i] = rules[i].trie.get(name, rules[i].defaultRate);
+                sampled |= rates[i] > 1;
+            }
+        }
+        return sampled ? new Sampler(rates) : null;
+    }
+
+    /**
+     * Returns true if the event should be recorded, sets its sample rate if it was sampled.
+     */
+    boolean sample(JFRLogEvent event) {
+        int rate = rates[Integer.numberOfTrailingZeros(event.level())];
+        if(rate > 1) {
+            if(ThreadLocalRandom.current().nextInt(rate) != 0) {
+                return false;
+            }
+            event.sampleRate = rate;
+        }
+        return true;
+    }
+
+    private static Rules[] parse(Map<String, String> settings) {
+
+        Map<String, Map<String, Integer>> prefixes = new HashMap<>();
+        Map<String, Integer> defaults = new HashMap<>();
+
+        settings.forEach((key, value) -> {
+            if(key.startsWith(Settings.SAMPLE_PREFIX)) {
+                String rule = key.substring(Settings.SAMPLE_PREFIX.length());
+                int dot = rule.indexOf('.');
+                String level = (dot == -1 ? rule : rule.substring(0, dot)).toLowerCase(Locale.ROOT);
+                try{
+                    int rate = parseRate(value);
+                    if(indexOf(level) == -1) {
+                        throw new NumberFormatException();
+                    }
+                    if(dot == -1) {
+                        defaults.put(level, rate);
+                    }else{
+                        prefixes.computeIfAbsent(level, k -> new HashMap<>()).put(rule.substring(dot+1), rate);
+                    }
+                }catch(NumberFormatException ex) {
+                    Reporter.warn("JFRLog: ignoring invalid sample rule jfrlog."+key+"="+value);
+                }
+            }
+        });
+
+        if(prefixes.isEmpty() && defaults.isEmpty()) {
+            return null;
+        }
+
+        Rules[] rules = new Rules[LEVEL_NAMES.length];
+        for (int i = 0; i < rules.length; i++) {
+            String level = LEVEL_NAMES[i];
+            if(prefixes.containsKey(level) || defaults.containsKey(level)) {
+                rules[i] = new Rules(new NameTrie<>(prefixes.getOrDefault(level, new HashMap<>())), defaults.getOrDefault(level, 1));
+            }
+        }
+        return rules;
+    }
+
+    // "1/N" or "N"
+    private static int parseRate(String value) {
+        String rate = value.trim();
+        if(rate.startsWith("1/")) {
+            rate = rate.substring(2).trim();
+        }
+        int n = Integer.parseInt(rate);
+        if(n <= 0) {
+            throw new NumberFormatException();
+        }
+        return n;
+    }
+
+    private static int indexOf(String level) {
+        for (int i = 0; i < LEVEL_NAMES.length; i++) {
+            if(LEVEL_NAMES[i].equals(level)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Rules {
+
+        private final NameTrie<Integer> trie;
+        private final Integer defaultRate;
+
+        private Rules(NameTrie<Integer> trie, Integer defaultRate) {
+            this.trie = trie;
+            this.defaultRate = defaultRate;
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package dev.mbien.slf2jfr;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import org.slf4j.helpers.Reporter;
+
+/**
+ * jfrlog.* settings loaded from the jfrlog.properties file and JVM -D arguments.
+ * JVM arguments override properties with the same key stored in the file.
+ * <p>
+ * Keys are stored without the prefix. Keys which aren't options are logger level rules,
+ * keys starting with "marker." are marker level rules, "throttle." keys are throttle rules.
+ *
+ * @author mbien
+ */
+final class Settings {
+
+    static final String PREFIX = "jfrlog.";
+    static final String MARKER_PREFIX = "marker.";
+    static final String THROTTLE_PREFIX = "throttle.";
+    static final String SAMPLE_PREFIX = "sample.";
+
+    private static final Set<String> OPTIONS = new HashSet<>(Arrays.asList(
+            "default", "loggerCache", "loggerCacheSize", "recordOrigin", "deferFormatting", "typedArgs", "throwableDedup",
+            "jmx", "watch", "coalesceWindow", "fallback", "blackBox", "blackBoxDump",
+            "callerLocation", "eventCategories", "statistics", "originClass", "lazyBootstrap",
+            "maxMessageLength", "maxStackFrames", "maxCauseDepth"));
+
+    private static final Map<String, String> settings = Collections.unmodifiableMap(load());
+
+    private Settings() {}
+
+    static Map<String, String> load() {
+
+        Map<String, String> settings = new HashMap<>();
+
+        // load properties file first and let jvm args overwrite it
+        InputStream stream = Settings.class.getResourceAsStream("/jfrlog.properties");
+        if(stream != null) {
+            try(Scanner lineScanner = new Scanner(stream)) {
+                while(lineScanner.hasNextLine()) {
+                    String property = lineScanner.nextLine().trim();
+                    if(!property.isEmpty() && property.charAt(0) != '#') {
+                        int split = property.indexOf('=');
+                        if(split > PREFIX.length()) {
+                            settings.put(property.substring(PREFIX.length(), split).trim(),
+                                         property.substring(split+1, property.length()).trim());
+                        }
+                    }
+                }
+            }
+        }
+
+        // load jvm args from properties
+        System.getProperties().forEach((key, value) -> {
+            String keyStr = (String)key;
+            if(keyStr.startsWith(PREFIX)) {
+                settings.put(keyStr.substring(PREFIX.length()), (String)value);
+            }
+        });
+
+        return settings;
+    }
+
+    /**
+     * All settings as loaded during class initialization.
+     */
+    static Map<String, String> get() {
+        return settings;
+    }
+
+    static boolean isOption(String key) {
+        return OPTIONS.contains(key) || key.startsWith(MARKER_PREFIX) || key.startsWith(THROTTLE_PREFIX)
+                || key.startsWith(SAMPLE_PREFIX);
+    }
+
+    static String getString(String key, String defaultValue) {
+        String value = settings.get(key);
+        if(value == null || isBlank(value)) {
+            return defaultValue;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the int value of the setting, all int options are sizes, limits or durations.
+     * Invalid or negative values are reported and the default value is used instead.
+     */
+    static int getInt(String key, int defaultValue) {
+        String value = settings.get(key);
+        if(value == null || isBlank(value)) {
+            return defaultValue;
+        }
+        try{
+            int number = Integer.parseInt(value.trim());
+            if(number >= 0) {
+                return number;
+            }
+        }catch(NumberFormatException ignored) {}
+        Reporter.warn("JFRLog: ignoring invalid setting "+PREFIX+key+"="+value+", using "+defaultValue);
+        return defaultValue;
+    }
+
+    static boolean getBoolean(String key, boolean defaultValue) {
+        return parseBoolean(settings.get(key), defaultValue);
+    }
+
+    // for JDK8 backwards compatibility
+    static boolean isBlank(String string) {
+        if(string.isEmpty())
+            return true;
+        for (int i = 0; i < string.length(); i++)
+            if(!Character.isWhitespace(string.charAt(i)))
+                return false;
+        return true;
+    }
+
+    static boolean parseBoolean(String value, boolean defaultValue) {
+        if(value == null || isBlank(value)) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+}
@@ -0,0 +1,77 @@
+package dev.mbien.slf2jfr;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import org.slf4j.helpers.Reporter;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Reloads the level rules when the jfrlog.properties file changes.
+ * Only works if the file is in a classpath directory, not within a jar.
+ *
+ * @author mbien
+ */
+final class SettingsWatcher implements Runnable {
+
+    private final WatchService service;
+    private final Path file;
+
+    private SettingsWatcher(WatchService service, Path file) {
+        this.service = service;
+        this.file = file;
+    }
+
+    static void start() {
+
+        URL url = SettingsWatcher.class.getResource("/jfrlog.properties");
+        if(url == null || !"file".equals(url.getProtocol())) {
+            Reporter.warn("JFRLog: jfrlog.watch requires a jfrlog.properties file in a classpath directory, found: "+url);
+            return;
+        }
+
+        try{
+            Path file = Paths.get(url.toURI());
+            WatchService service = file.getFileSystem().newWatchService();
+            file.getParent().register(service, ENTRY_CREATE, ENTRY_MODIFY);
+
+            Thread thread = new Thread(new SettingsWatcher(service, file.getFileName()), "JFRLog settings watcher");
+            thread.setDaemon(true);
+            thread.start();
+        }catch(IOException | URISyntaxException ex) {
+            Reporter.error("JFRLog: failed to watch "+url, ex);
+        }
+    }
+
+    @Override
+    public void run() {
+        try{
+            while(true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if(event.kind() == OVERFLOW || file.equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                if(changed) {
+                    JFRLoggerFactory.reloadLevelRules();
+                }
+                if(!key.reset()) {
+                    Reporter.warn("JFRLog: stopped watching jfrlog.properties, directory is no longer accessible");
+                    return;
+                }
+            }
+        }catch(InterruptedException | ClosedWatchServiceException ex) {
+            // shutdown
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package dev.mbien.slf2jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event reporting what the bridge did since the previous report.
+ * 
+ * @author mbien
+ */
+@Name("log.Statistics")
+@Label("Logger statistics")
+@Description("Activity of the logger bridge since the last report.")
+@Category("JFR Logger")
+@StackTrace(false)
+@Period("1 s")
+final class Statistics extends Event {
+    
+    @Label("Committed trace events")
+    long trace;
+    
+    @Label("Committed debug events")
+    long debug;
+    
+    @Label("Committed info events")
+    long info;
+    
+    @Label("Committed warn events")
+    long warn;
+    
+    @Label("Committed error events")
+    long error;
+    
+    @Label("Suppressed")
+    @Description("Log calls and level checks rejected because the level or its event type was disabled.")
+    long suppressed;
+    
+    @Label("Format time")
+    @Description("Time spent formatting messages (or storing pattern and arguments) on logging threads.")
+    @Timespan(Timespan.NANOSECONDS)
+    long formatTime;
+    
+    @Label("Throwable time")
+    @Description("Time spent printing or deduplicating throwables on logging threads.")
+    @Timespan(Timespan.NANOSECONDS)
+    long throwableTime;
+    
+    @Label("Message characters")
+    @Description("Length of the messages (or patterns if formatting was deferred) of the committed events.")
+    long messageChars;
+    
+    @Label("Logger cache hits")
+    long cacheHits;
+    
+    @Label("Logger cache misses")
+    long cacheMisses;
+    
+}
@@ -0,0 +1,116 @@
+package dev.mbien.slf2jfr;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.FlightRecorder;
+import org.slf4j.helpers.Reporter;
+
+/**
+ * Lock-free rate limit of a jfrlog.throttle.PREFIX=eventsPerSecond rule, shared by all
+ * loggers of that prefix.
+ * <p>
+ * Implemented as generic cell rate algorithm (a token bucket which only stores the
+ * theoretical arrival time of the next event): one CAS per event, bursts up to one
+ * second worth of events. Dropped events are counted and reported by the periodic
+ * {@link Throttled} event.
+ *
+ * @author mbien
+ */
+final class Throttle {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private static final List<Throttle> throttles = new ArrayList<>();
+
+    private final String prefix;
+    private final int rate;
+    private final long interval;  // nanos between two events
+    private final long tolerance; // burst of one second
+
+    private final AtomicLong tat; // theoretical arrival time
+    private final LongAdder dropped = new LongAdder();
+
+    Throttle(String prefix, int rate) {
+        this.prefix = prefix;
+        this.rate = rate;
+        this.interval = Math.max(1, SECOND / rate);
+        this.tolerance = interval * rate;
+        this.tat = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Parses the jfrlog.throttle.* rules, returns null if there are none.
+     */
+    static NameTrie<Throttle> fromSettings(Map<String, String> settings) {
+
+        Map<String, Throttle> rules = new HashMap<>();
+        settings.forEach((key, value) -> {
+            if(key.startsWith(Settings.THROTTLE_PREFIX)) {
+                String prefix = key.substring(Settings.THROTTLE_PREFIX.length());
+                try{
+                    int rate = Integer.parseInt(value.trim());
+                    if(rate <= 0 || prefix.isEmpty()) {
+                        throw new NumberFormatException();
+                    }
+                    rules.put(prefix, new Throttle(prefix, rate));
+                }catch(NumberFormatException ex) {
+                    Reporter.warn("JFRLog: ignoring invalid throttle rule jfrlog."+key+"="+value);
+                }
+            }
+        });
+
+        if(rules.isEmpty()) {
+            return null;
+        }
+
+        synchronized(throttles) {
+            if(throttles.isEmpty()) {
+                FlightRecorder.addPeriodicEvent(Throttled.class, Throttle::report);
+            }
+            throttles.addAll(rules.values());
+        }
+        return new NameTrie<>(rules);
+    }
+
+    /**
+     * Returns true if the event may be recorded, counts it as dropped otherwise.
+     */
+    boolean tryAcquire() {
+        long now = System.nanoTime();
+        while(true) {
+            long current = tat.get();
+            long next = (current - now > 0 ? current : now) + interval;
+            if(next - now > tolerance) {
+                dropped.increment();
+                return false;
+            }
+            if(tat.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    private static void report() {
+        synchronized(throttles) {
+            for (Throttle throttle : throttles) {
+                long count = throttle.dropped.sumThenReset();
+                if(count > 0) {
+                    Throttled event = new Throttled();
+                    event.origin = throttle.prefix;
+                    event.rate = throttle.rate;
+                    event.dropped = count;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package dev.mbien.slf2jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event reporting how many log events a jfrlog.throttle.* rule dropped
+ * since the previous report.
+ * 
+ * @author mbien
+ */
+@Name("log.Throttled")
+@Label("Throttled log events")
+@Description("Number of log events dropped by a throttle rule since the last report.")
+@Category("JFR Logger")
+@StackTrace(false)
+@Period("1 s")
+final class Throttled extends Event {
+    
+    @Label("Logger name prefix of the throttle rule")
+    String origin;
+    
+    @Label("Events per second allowed by the rule")
+    int rate;
+    
+    @Label("Dropped log events")
+    long dropped;
+    
+}
@@ -0,0 +1,114 @@
+package dev.mbien.slf2jfr;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Remembers which throwables have been defined in the current chunk.
+ * <p>
+ * Throwables are identified by a 64 bit hash over everything printStackTrace would
+ * print. The hash is cheap compared to printing the stack trace which only happens
+ * once per distinct hash and chunk. The cache is direct-mapped and bounded, a
+ * colliding throwable is simply defined again. Ids are even, the lowest bit of a
+ * cache entry records whether the printed definition has been truncated.
+ *
+ * @author mbien
+ */
+final class ThrowableCache {
+
+    private static final EventType DEFINITION_TYPE = EventType.getEventType(ThrowableDefinition.class);
+
+    private static final int CACHE_SIZE = 1024; // power of two
+    private static final int MAX_DEPTH = 32;    // causes and suppressed throwables
+    private static final long TRUNCATED = 1;
+
+    private static final AtomicLongArray defined = new AtomicLongArray(CACHE_SIZE);
+
+    static {
+        // ids are only valid within a chunk
+        FlightRecorder.addPeriodicEvent(ThrowableDefinition.class, ThrowableCache::reset);
+    }
+
+    private ThrowableCache() {}
+
+    /**
+     * Returns true if throwables are defined as separate events. If this returns
+     * false, the definition event is not recorded and throwables have to be recorded inline.
+     */
+    static boolean isEnabled() {
+        return DEFINITION_TYPE.isEnabled();
+    }
+
+    /**
+     * Sets the throwable id of the event, emits a {@link ThrowableDefinition} if it
+     * wasn't defined in the current chunk yet. The event is flagged as truncated if
+     * the definition has been.
+     */
+    static void define(JFRLogEvent event, Throwable t) {
+
+        long id = hash(t);
+        int slot = (int)(id ^ (id >>> 32)) & (CACHE_SIZE-1);
+
+        long entry = defined.get(slot);
+        if((entry & ~TRUNCATED) != id) {
+            ThrowableDefinition definition = new ThrowableDefinition();
+            definition.throwableId = id;
+            entry = id;
+            if(ThrowablePrinter.isBounded()) {
+                ThrowablePrinter printer = new ThrowablePrinter();
+                definition.throwable = printer.print(t);
+                if(printer.isTruncated()) {
+                    entry |= TRUNCATED;
+                }
+            }else{
+                definition.throwable = JFRLogger.throwableToString(t);
+            }
+            definition.commit();
+            defined.set(slot, entry);
+        }
+        event.throwableId = id;
+        event.truncated |= (entry & TRUNCATED) != 0;
+    }
+
+    static void reset() {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            defined.set(i, 0);
+        }
+    }
+
+    static long hash(Throwable t) {
+        long hash = hash(0x9E3779B97F4A7C15L, t, 0);
+        // fmix64 finalizer of murmur3
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        hash &= ~TRUNCATED;
+        return hash != 0 ? hash : 2; // 0 is reserved for no throwable
+    }
+
+    private static long hash(long hash, Throwable t, int depth) {
+
+        if(t == null || depth >= MAX_DEPTH) {
+            return hash;
+        }
+
+        hash = mix(hash, t.toString().hashCode());
+        for (StackTraceElement element : t.getStackTrace()) {
+            hash = mix(hash, element.hashCode());
+        }
+        for (Throwable suppressed : t.getSuppressed()) {
+            hash = hash(mix(hash, 's'), suppressed, depth+1);
+        }
+
+        Throwable cause = t.getCause();
+        return cause != t ? hash(mix(hash, 'c'), cause, depth+1) : hash;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+}
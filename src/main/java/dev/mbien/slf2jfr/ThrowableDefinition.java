@@ -0,0 +1,31 @@
+package dev.mbien.slf2jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event defining a printed {@link Throwable} once per chunk. Log events
+ * reference it by id if jfrlog.throwableDedup is enabled.
+ * 
+ * @author mbien
+ */
+@Name("log.ThrowableDefinition")
+@Label("Throwable definition")
+@Description("A Throwable printed as String, referenced by log events of the same chunk.")
+@Category("JFR Logger")
+@StackTrace(false)
+@Period("beginChunk")
+final class ThrowableDefinition extends Event {
+    
+    @Label("Throwable id")
+    long throwableId;
+    
+    @Label("A Throwable printed as String")
+    String throwable;
+    
+}
@@ -0,0 +1,124 @@
+package dev.mbien.slf2jfr;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Prints throwables in the format of {@link Throwable#printStackTrace()} but stops at
+ * jfrlog.maxStackFrames frames per throwable and jfrlog.maxCauseDepth nested causes
+ * (or suppressed throwables). Omitted frames are summarized as "... n more" like frames
+ * in common with the enclosing trace. Messages of throwables are cut off after
+ * jfrlog.maxMessageLength characters.
+ * <p>
+ * Printing stops at the limits instead of shortening the text afterwards, the cost stays
+ * bounded regardless of the depth of the original stack traces.
+ *
+ * @author mbien
+ */
+final class ThrowablePrinter {
+
+    private static final int MAX_FRAMES = Settings.getInt("maxStackFrames", 0);
+    private static final int MAX_CAUSES = Settings.getInt("maxCauseDepth", 0);
+    private static final int MAX_MESSAGE = Settings.getInt("maxMessageLength", 0);
+
+    private final StringBuilder sb = new StringBuilder(1024);
+    private final Set<Throwable> dejaVu = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean truncated;
+
+    /**
+     * True if a limit is configured, {@link Throwable#printStackTrace()} can be used otherwise.
+     */
+    static boolean isBounded() {
+        return MAX_FRAMES > 0 || MAX_CAUSES > 0 || MAX_MESSAGE > 0;
+    }
+
+    String print(Throwable t) {
+        dejaVu.add(t);
+        append(t).append('\n');
+        StackTraceElement[] trace = t.getStackTrace();
+        int shown = frames(trace.length);
+        for (int i = 0; i < shown; i++) {
+            sb.append("\tat ").append(trace[i]).append('\n');
+        }
+        if(shown < trace.length) {
+            truncated = true;
+            sb.append("\t... ").append(trace.length - shown).append(" more\n");
+        }
+        printEnclosed(t, trace, "", 1);
+        return sb.toString();
+    }
+
+    /**
+     * True if a frame or throwable was omitted because of a limit.
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    private void printEnclosed(Throwable t, StackTraceElement[] trace, String prefix, int depth) {
+        for (Throwable suppressed : t.getSuppressed()) {
+            print(suppressed, trace, "Suppressed: ", prefix + "\t", depth);
+        }
+        Throwable cause = t.getCause();
+        if(cause != null) {
+            print(cause, trace, "Caused by: ", prefix, depth);
+        }
+    }
+
+    private void print(Throwable t, StackTraceElement[] enclosingTrace, String caption, String prefix, int depth) {
+
+        if(dejaVu.contains(t)) {
+            sb.append(prefix).append(caption).append("[CIRCULAR REFERENCE: ");
+            append(t).append("]\n");
+            return;
+        }
+        if(MAX_CAUSES > 0 && depth > MAX_CAUSES) {
+            truncated = true;
+            sb.append(prefix).append(caption).append("... ").append(t.getClass().getName()).append(" (cause depth limit)\n");
+            return;
+        }
+        dejaVu.add(t);
+
+        // frames in common with the enclosing trace
+        StackTraceElement[] trace = t.getStackTrace();
+        int m = trace.length - 1;
+        int n = enclosingTrace.length - 1;
+        while(m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+            m--;
+            n--;
+        }
+        int unique = m + 1;
+        int shown = frames(unique);
+
+        sb.append(prefix).append(caption);
+        append(t).append('\n');
+        for (int i = 0; i < shown; i++) {
+            sb.append(prefix).append("\tat ").append(trace[i]).append('\n');
+        }
+        if(shown < unique) {
+            truncated = true;
+        }
+        int omitted = trace.length - shown;
+        if(omitted != 0) {
+            sb.append(prefix).append("\t... ").append(omitted).append(" more\n");
+        }
+        printEnclosed(t, trace, prefix, depth + 1);
+    }
+
+    // "class: message" like Throwable.toString(), the message can be arbitrarily large
+    private StringBuilder append(Throwable t) {
+        String str = t.toString();
+        int max = t.getClass().getName().length() + 2 + MAX_MESSAGE;
+        if(MAX_MESSAGE > 0 && str.length() > max) {
+            truncated = true;
+            return sb.append(str, 0, max);
+        }
+        return sb.append(str);
+    }
+
+    private static int frames(int frames) {
+        return MAX_FRAMES > 0 ? Math.min(frames, MAX_FRAMES) : frames;
+    }
+
+}
@@ -0,0 +1,79 @@
+package dev.mbien.slf2jfr;
+
+import java.util.Optional;
+
+/**
+ * Finds the caller of the logger (jfrlog.callerLocation) and the class of
+ * a logger name (jfrlog.originClass).
+ * <p>
+ * Java 9+ version, walks at most {@link #MAX_FRAMES} frames lazily instead of filling in
+ * the whole stack trace.
+ *
+ * @author mbien
+ */
+final class CallerLocator {
+
+    static final int MAX_FRAMES = 16;
+
+    private static final StackWalker walker = StackWalker.getInstance();
+    private static final StackWalker classWalker = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private CallerLocator() {}
+
+    /**
+     * Sets the caller fields of the event to the first frame outside of the bridge.
+     */
+    static void locate(JFRLogEvent event) {
+        Optional<StackWalker.StackFrame> caller = walker.walk(frames -> frames
+                .limit(MAX_FRAMES)
+                .filter(frame -> !isBridge(frame.getClassName()))
+                .findFirst());
+        if(caller.isPresent()) {
+            StackWalker.StackFrame frame = caller.get();
+            event.callerClass = frame.getClassName();
+            event.callerMethod = frame.getMethodName();
+            event.callerLine = frame.getLineNumber();
+        }
+    }
+
+    /**
+     * Returns the class of the given logger name (jfrlog.originClass), null if there is none.
+     * Usually the caller of LoggerFactory.getLogger(Class) itself, otherwise the name is
+     * looked up with the context class loader like on Java 8.
+     */
+    static Class<?> findClass(String name) {
+        Optional<Class<?>> caller = classWalker.walk(frames -> frames
+                .limit(MAX_FRAMES)
+                .<Class<?>>map(StackWalker.StackFrame::getDeclaringClass)
+                .filter(c -> !isBridge(c.getName()))
+                .findFirst());
+        if(caller.isPresent() && caller.get().getName().equals(name)) {
+            return caller.get();
+        }
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return forName(name, loader != null ? loader : CallerLocator.class.getClassLoader());
+    }
+
+    static boolean isBridge(String className) {
+        return className.startsWith("org.slf4j.")
+            || className.startsWith("java.util.logging.")
+            || className.startsWith("java.lang.System$Logger")
+            || className.startsWith("jdk.internal.logger.")
+            || className.startsWith("sun.util.logging.")
+            || className.equals("dev.mbien.slf2jfr.JFRLogger")
+            || className.equals("dev.mbien.slf2jfr.JFRLogHandler")
+            || className.startsWith("dev.mbien.slf2jfr.JFRLoggerFinder")
+            || className.equals("dev.mbien.slf2jfr.JFRLoggerFactory")
+            || className.equals("dev.mbien.slf2jfr.CallerLocator");
+    }
+
+    // loads without initializing, null if the name is not a class name
+    private static Class<?> forName(String name, ClassLoader loader) {
+        try{
+            return Class.forName(name, false, loader);
+        }catch(ClassNotFoundException | LinkageError ex) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package dev.mbien.slf2jfr;
+
+import java.util.ResourceBundle;
+
+/**
+ * Routes System.Logger (JDK 9+) to the JFRLogger of the same name, registered as service in
+ * META-INF/services. Messages go straight to the logger, JUL is not involved. System.Logger levels
+ * map like ERROR - error, WARNING - warn, INFO - info, DEBUG - debug, TRACE and ALL - trace.
+ *
+ * @author mbien
+ */
+public class JFRLoggerFinder extends System.LoggerFinder {
+
+    public JFRLoggerFinder() {}
+
+    @Override
+    public System.Logger getLogger(String name, Module module) {
+        return new JFRSystemLogger((JFRLogger) JFRLoggerFactory.getFactory().getLogger(name));
+    }
+
+    static int toLevel(System.Logger.Level level) {
+        switch(level) {
+            case ALL:
+            case TRACE:   return JFRLogger.TRACE;
+            case DEBUG:   return JFRLogger.DEBUG;
+            case INFO:    return JFRLogger.INFO;
+            case WARNING: return JFRLogger.WARN;
+            case ERROR:   return JFRLogger.ERROR;
+            default:      return JFRLogger.LEVEL_OFF;
+        }
+    }
+
+    private static final class JFRSystemLogger implements System.Logger {
+
+        private final JFRLogger logger;
+
+        private JFRSystemLogger(JFRLogger logger) {
+            this.logger = logger;
+        }
+
+        @Override
+        public String getName() {
+            return logger.getName();
+        }
+
+        @Override
+        public boolean isLoggable(Level level) {
+            return logger.isEnabled(toLevel(level));
+        }
+
+        @Override
+        public void log(Level level, ResourceBundle bundle, String msg, Throwable thrown) {
+            int bit = toLevel(level);
+            if(logger.isEnabled(bit)) {
+                logger.publish(bit, JFRLogger.localize(bundle, msg), null, thrown);
+            }
+        }
+
+        @Override
+        public void log(Level level, ResourceBundle bundle, String format, Object... params) {
+            int bit = toLevel(level);
+            if(logger.isEnabled(bit)) {
+                logger.publish(bit, JFRLogger.localize(bundle, format), params, null);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.EventType;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class BlackBoxTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.blackBox", "4");
+        System.setProperty("jfrlog.throwableDedup", "true");
+    }
+    
+    @Test
+    public void dumpOnError() {
+        
+        Logger log = LoggerFactory.getLogger("blackbox");
+        
+        List<String> dumped = new ArrayList<>();
+        
+        try (RecordingStream rs = new RecordingStream()) {
+            
+            rs.disable("log.Debug");
+            rs.disable("log.Info");
+            rs.enable("log.Error");
+            rs.enable("log.BlackBox");
+            
+            rs.onEvent("log.BlackBox", (e) -> {
+                System.out.println(e);
+                dumped.add(e.getString("level") + " " + e.getString("message"));
+                if(dumped.size() == 5) {
+                    rs.close();
+                }
+            });
+            rs.startAsync();
+            
+            for (int i = 0; i < 10; i++) {
+                log.debug("step {}", i);
+            }
+            log.info("almost done");
+            log.error("failed");
+            
+            assertEquals(0, JFRLoggerFactory.getFactory().dumpBlackBox());
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        assertEquals(5, dumped.size(), dumped.toString());
+        assertEquals("DEBUG step 6", dumped.get(0));
+        assertEquals("DEBUG step 9", dumped.get(3));
+        assertEquals("INFO almost done", dumped.get(4));
+    }
+    
+    @Test
+    public void keepWhileNotRecorded() {
+        
+        Logger log = LoggerFactory.getLogger("blackbox.kept");
+        
+        // no recording enables log.BlackBox, errors don't drain the black box
+        log.debug("kept");
+        log.error("not recorded");
+        
+        List<String> dumped = new ArrayList<>();
+        
+        try (RecordingStream rs = new RecordingStream()) {
+            
+            rs.enable("log.BlackBox");
+            rs.onEvent("log.BlackBox", (e) -> {
+                dumped.add(e.getString("level") + " " + e.getString("message"));
+                if(dumped.size() == 2) {
+                    rs.close();
+                }
+            });
+            rs.startAsync();
+            
+            assertEquals(2, JFRLoggerFactory.getFactory().dumpBlackBox());
+            assertEquals(0, JFRLoggerFactory.getFactory().dumpBlackBox());
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        assertEquals(Arrays.asList("DEBUG kept", "ERROR not recorded"), dumped);
+    }
+    
+    @Test
+    public void keepThrowable() {
+        
+        Logger log = LoggerFactory.getLogger("blackbox.throwable");
+        
+        List<RecordedEvent> dumped = new CopyOnWriteArrayList<>();
+        
+        try (RecordingStream rs = new RecordingStream()) {
+            
+            // throwables of recorded events are deduplicated, the black box needs the printed throwable
+            rs.disable("log.Debug");
+            rs.enable("log.ThrowableDefinition");
+            rs.enable("log.BlackBox");
+            rs.onEvent("log.BlackBox", (e) -> {
+                System.out.println(e);
+                dumped.add(e);
+                rs.close();
+            });
+            rs.startAsync();
+            
+            log.debug("oh dear", new IllegalStateException("don't panic"));
+            log.error("failed", new IllegalStateException("recorded"));
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        assertEquals(1, dumped.size());
+        assertEquals("oh dear", dumped.get(0).getString("message"));
+        assertTrue(dumped.get(0).getString("throwable").startsWith("java.lang.IllegalStateException: don't panic"));
+    }
+    
+    @Test
+    public void formatWhenDumped() {
+        
+        Logger log = LoggerFactory.getLogger("blackbox.raw");
+        
+        List<RecordedEvent> dumped = new CopyOnWriteArrayList<>();
+        
+        try (RecordingStream rs = new RecordingStream()) {
+            
+            rs.disable("log.Debug");
+            rs.enable("log.Error");
+            rs.enable("log.BlackBox");
+            rs.onEvent("log.BlackBox", (e) -> {
+                System.out.println(e);
+                dumped.add(e);
+                if(dumped.size() == 4) {
+                    rs.close();
+                }
+            });
+            rs.startAsync();
+            
+            StringBuilder state = new StringBuilder("before");
+            log.debug("state {}", state);
+            state.replace(0, state.length(), "after");
+            log.debug("{} + {}", 1, 2);
+            log.debug("{}{}{}", "a", "b", "c");
+            log.debug("{} failed", "step", new IllegalStateException("boom"));
+            log.error("failed");
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        assertEquals(4, dumped.size());
+        assertEquals("state after", dumped.get(0).getString("message"));
+        assertEquals("1 + 2", dumped.get(1).getString("message"));
+        assertEquals("abc", dumped.get(2).getString("message"));
+        assertEquals("step failed", dumped.get(3).getString("message"));
+        assertTrue(dumped.get(3).getString("throwable").startsWith("java.lang.IllegalStateException: boom"));
+        
+        // the raw message is not part of the log events
+        assertNull(EventType.getEventType(JFRLogEvent.Debug.class).getField("rawFormat"));
+    }
+    
+}
@@ -0,0 +1,81 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.EventStream;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class CallerLocationTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.callerLocation", "warn");
+    }
+    
+    @Test
+    public void recordCaller() {
+
+        Logger log = LoggerFactory.getLogger("caller");
+        
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+
+        try (EventStream es = new RecordingStream()) {
+            
+            es.onEvent(e -> {
+                if(e.getEventType().getName().startsWith("log.")) {
+                    System.out.println(e);
+                    events.add(e);
+                    if(e.getEventType().getName().equals("log.Error")) {
+                        es.close();
+                    }
+                }
+            });
+            es.startAsync();
+
+            log.info("no location");
+            log.warn("here {}", 1);
+            log.atError().log("there");
+
+            try {
+                es.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        assertEquals(3, events.size());
+        
+        assertEquals("log.Info", events.get(0).getEventType().getName());
+        assertNull(events.get(0).getString("callerClass"));
+        
+        assertEquals("log.Warn", events.get(1).getEventType().getName());
+        assertEquals(CallerLocationTest.class.getName(), events.get(1).getString("callerClass"));
+        assertEquals("recordCaller", events.get(1).getString("callerMethod"));
+        assertEquals(49, events.get(1).getInt("callerLine"));
+        
+        assertEquals("log.Error", events.get(2).getEventType().getName());
+        assertEquals(CallerLocationTest.class.getName(), events.get(2).getString("callerClass"));
+        assertEquals(50, events.get(2).getInt("callerLine"));
+    }
+    
+    @Test
+    public void stackWalkerVersion() {
+        // the tests run against the Java 9+ classes of the multi-release jar
+        assertTrue(Arrays.stream(CallerLocator.class.getDeclaredFields())
+                .anyMatch(f -> f.getType().getName().equals("java.lang.StackWalker")));
+    }
+    
+}
@@ -0,0 +1,191 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class CoalesceTest {
+
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.coalesceWindow", "200");
+        System.setProperty("jfrlog.eventCategories", "coalesce.db");
+        System.setProperty("jfrlog.blackBox", "8");
+    }
+
+    @Test
+    public void coalesceRepeats() {
+
+        Logger log = LoggerFactory.getLogger("coalesce");
+
+        List<RecordedEvent> warnings = new CopyOnWriteArrayList<>();
+        List<RecordedEvent> coalesced = new CopyOnWriteArrayList<>();
+
+        try (RecordingStream rs = new RecordingStream()) {
+
+            rs.enable("log.Warn");
+            rs.enable("log.Coalesced").withPeriod(Duration.ofMillis(100));
+
+            rs.onEvent("log.Warn", warnings::add);
+            rs.onEvent("log.Coalesced", (e) -> {
+                System.out.println(e);
+                coalesced.add(e);
+                rs.close();
+            });
+            rs.startAsync();
+
+            for (int i = 0; i < 1000; i++) {
+                log.warn("retry {} failed", 1);
+            }
+            log.warn("retry {} failed", 2); // different text
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+
+        assertEquals(1, coalesced.size());
+        RecordedEvent e = coalesced.get(0);
+        assertEquals("coalesce", e.getString("origin"));
+        assertEquals("log.Warn", e.getString("level"));
+        assertEquals("retry 1 failed", e.getString("message"));
+        assertEquals(1000, e.getLong("count"));
+        assertTrue(e.getLong("firstTime") <= e.getLong("lastTime"));
+
+        assertEquals(2, warnings.size());
+        assertEquals("retry 1 failed", warnings.get(0).getString("message"));
+        assertEquals("retry 2 failed", warnings.get(1).getString("message"));
+    }
+
+    @Test
+    public void keepRepeatsWithoutReport() {
+
+        Logger log = LoggerFactory.getLogger("coalesce.unreported");
+
+        List<RecordedEvent> warnings = new CopyOnWriteArrayList<>();
+
+        try (RecordingStream rs = new RecordingStream()) {
+
+            rs.enable("log.Warn");
+            rs.disable("log.Coalesced");
+
+            rs.onEvent("log.Warn", (e) -> {
+                warnings.add(e);
+                if(warnings.size() == 10) {
+                    rs.close();
+                }
+            });
+            rs.startAsync();
+
+            for (int i = 0; i < 10; i++) {
+                log.warn("retry failed");
+            }
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+
+        assertEquals(10, warnings.size());
+    }
+
+    @Test
+    public void coalesceCategoryEvents() {
+
+        Logger log = LoggerFactory.getLogger("coalesce.db.Pool");
+
+        List<RecordedEvent> coalesced = new CopyOnWriteArrayList<>();
+
+        try (RecordingStream rs = new RecordingStream()) {
+
+            rs.enable("log.Warn.coalesce.db");
+            rs.enable("log.Coalesced").withPeriod(Duration.ofMillis(100));
+
+            rs.onEvent("log.Coalesced", (e) -> {
+                System.out.println(e);
+                coalesced.add(e);
+                rs.close();
+            });
+            rs.startAsync();
+
+            for (int i = 0; i < 5; i++) {
+                log.warn("pool exhausted");
+            }
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+
+        assertEquals(1, coalesced.size());
+        assertEquals("log.Warn.coalesce.db", coalesced.get(0).getString("level"));
+        assertEquals(5, coalesced.get(0).getLong("count"));
+    }
+
+    @Test
+    public void keepUncommittedRepeats() {
+
+        Logger log = LoggerFactory.getLogger("coalesce.boxed");
+
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+
+        try (RecordingStream rs = new RecordingStream()) {
+
+            // disabled events go to the black box, repeats must not be swallowed
+            rs.disable("log.Info");
+            rs.enable("log.Error");
+            rs.enable("log.BlackBox");
+            rs.enable("log.Coalesced").withPeriod(Duration.ofMillis(100));
+
+            rs.onEvent(e -> {
+                if(e.getEventType().getName().startsWith("log.")) {
+                    System.out.println(e);
+                    events.add(e);
+                    if(e.getEventType().getName().equals("log.BlackBox") && e.getString("message").equals("retry 3")) {
+                        rs.close();
+                    }
+                }
+            });
+            rs.startAsync();
+
+            for (int i = 0; i < 3; i++) {
+                log.info("retry failed");
+            }
+            log.info("retry 3");
+            log.error("gave up");
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+
+        assertEquals(5, events.size(), events.toString());
+        assertEquals("log.Error", events.get(0).getEventType().getName());
+        for (int i = 1; i < 4; i++) {
+            assertEquals("log.BlackBox", events.get(i).getEventType().getName());
+            assertEquals("retry failed", events.get(i).getString("message"));
+        }
+        assertEquals("retry 3", events.get(4).getString("message"));
+    }
+
+}
@@ -0,0 +1,86 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.EventStream;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class DeferredFormattingTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.deferFormatting", "true");
+    }
+    
+    @Test
+    public void deferredLog() {
+
+        Logger log = LoggerFactory.getLogger("deferred");
+        
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+
+        try (EventStream es = new RecordingStream()) {
+            
+            es.onEvent(e -> {
+                if(e.getEventType().getName().startsWith("log.")) {
+                    System.out.println(e);
+                    events.add(e);
+                    if(e.getEventType().getName().equals("log.Warn")) {
+                        es.close();
+                    }
+                }
+            });
+            es.startAsync();
+
+            log.trace("My name is: {} {}", "hans", 42);
+            log.debug("My name is: {0} {1}", "hans", "wurst"); // not deferrable
+            log.info("oh dear \\{} {}", "x", new RuntimeException("don't panic"));
+            log.warn("{} {} {} {} {}", "a", "b", "c", "d", "e"); // too many args
+
+            try {
+                es.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        assertEquals(4, events.size());
+        
+        RecordedEvent trace = events.get(0);
+        assertEquals("log.Trace", trace.getEventType().getName());
+        assertNull(trace.getString("message"));
+        assertEquals("My name is: {} {}", trace.getString("pattern"));
+        assertEquals("hans", trace.getString("arg0"));
+        assertEquals("42", trace.getString("arg1"));
+        assertEquals("My name is: hans 42", JFRLogEvents.getMessage(trace));
+        
+        RecordedEvent debug = events.get(1);
+        assertEquals("log.Debug", debug.getEventType().getName());
+        assertNull(debug.getString("pattern"));
+        assertEquals("My name is: hans wurst", JFRLogEvents.getMessage(debug));
+        
+        RecordedEvent info = events.get(2);
+        assertEquals("log.Info", info.getEventType().getName());
+        assertEquals("oh dear \\{} {}", info.getString("pattern"));
+        assertNotNull(info.getString("throwable"));
+        assertEquals("oh dear {} x", JFRLogEvents.getMessage(info));
+        
+        RecordedEvent warn = events.get(3);
+        assertEquals("log.Warn", warn.getEventType().getName());
+        assertNull(warn.getString("pattern"));
+        assertEquals("a b c d e", JFRLogEvents.getMessage(warn));
+    }
+    
+}
@@ -0,0 +1,78 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class EventCategoryTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.eventCategories", "acme.db, acme.cache");
+    }
+    
+    @Test
+    public void categoryEvents() {
+
+        Logger db = LoggerFactory.getLogger("acme.db.Pool");
+        Logger web = LoggerFactory.getLogger("acme.web.Servlet");
+        
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+        
+        try (RecordingStream rs = new RecordingStream()) {
+            
+            rs.disable("log.Info");
+            rs.disable("log.Warn.acme.db");
+            
+            rs.onEvent(e -> {
+                if(e.getEventType().getName().startsWith("log.")) {
+                    System.out.println(e);
+                    events.add(e);
+                    if(e.getEventType().getName().equals("log.Warn")) {
+                        rs.close();
+                    }
+                }
+            });
+            rs.startAsync();
+            
+            assertTrue(db.isInfoEnabled());
+            assertFalse(db.isWarnEnabled());
+            assertFalse(web.isInfoEnabled());
+            assertTrue(web.isWarnEnabled());
+
+            db.info("pool size {}", 5);
+            web.info("not recorded");
+            db.warn("not recorded");
+            web.warn("done");
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        // log.Info and log.Warn.acme.db are disabled
+        assertEquals(2, events.size());
+        
+        assertEquals("log.Info.acme.db", events.get(0).getEventType().getName());
+        assertEquals("acme.db.Pool", events.get(0).getString("origin"));
+        assertEquals("pool size 5", JFRLogEvents.getMessage(events.get(0)));
+        
+        assertEquals("log.Warn", events.get(1).getEventType().getName());
+        assertEquals("acme.web.Servlet", events.get(1).getString("origin"));
+    }
+    
+}
@@ -0,0 +1,134 @@
+package dev.mbien.slf2jfr;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class FallbackSinkTest {
+    
+    private static Path file;
+    
+    @BeforeAll
+    public static void setup() throws IOException {
+        file = Files.createTempFile("jfrlog-fallback", ".log");
+        file.toFile().deleteOnExit();
+        System.setProperty("jfrlog.fallback", file.toString());
+    }
+    
+    @Test
+    public void ring() throws InterruptedException {
+        
+        MpscRing<Integer> ring = new MpscRing<>(1024);
+        
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t * 256;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < 256; i++) {
+                    assertTrue(ring.offer(offset + i));
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        
+        assertFalse(ring.offer(-1)); // full
+        
+        Set<Integer> polled = new HashSet<>();
+        Integer value;
+        while((value = ring.poll()) != null) {
+            polled.add(value);
+        }
+        assertEquals(1024, polled.size());
+        assertTrue(ring.offer(42));
+        assertEquals(42, ring.poll());
+    }
+    
+    @Test
+    public void fallbackWithoutRecording() throws Exception {
+        
+        Logger log = LoggerFactory.getLogger("fallback");
+        
+        assertTrue(log.isInfoEnabled());
+        log.info("no recording {}", 1);
+        log.warn("failed", new RuntimeException("don't panic"));
+        
+        String content = waitForContent("failed");
+        assertTrue(content.contains("INFO  [main] fallback: no recording 1"), content);
+        assertTrue(content.contains("java.lang.RuntimeException: don't panic"), content);
+        
+        try (Recording recording = new Recording()) {
+            recording.enable("log.Info");
+            recording.start();
+            
+            assertFalse(FallbackSink.isActive());
+            log.info("recorded by JFR");
+        }
+        
+        Thread.sleep(200);
+        assertFalse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).contains("recorded by JFR"));
+        assertTrue(FallbackSink.isActive());
+    }
+    
+    @Test
+    public void parkWhileIdle() throws Exception {
+        
+        Logger log = LoggerFactory.getLogger("fallback.idle");
+        
+        log.info("wake up");
+        waitForContent("wake up");
+        
+        Thread writer = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("JFRLog fallback writer"))
+                .findFirst().orElseThrow(AssertionError::new);
+        for (int i = 0; i < 50 && writer.getState() != Thread.State.WAITING; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(Thread.State.WAITING, writer.getState()); // no polling
+        
+        try (Recording recording = new Recording()) {
+            for (String level : new String[] {"Trace", "Debug", "Info", "Warn", "Error"}) {
+                recording.disable("log."+level);
+            }
+            recording.start();
+            assertTrue(FallbackSink.isActive());
+            
+            // the listener doesn't see this, the next offered event does
+            recording.enable("log.Info");
+            log.debug("debug is disabled");
+            for (int i = 0; i < 50 && FallbackSink.isActive(); i++) {
+                Thread.sleep(100);
+            }
+            assertFalse(FallbackSink.isActive());
+        }
+        assertTrue(FallbackSink.isActive());
+    }
+    
+    private static String waitForContent(String expected) throws Exception {
+        String content = "";
+        for (int i = 0; i < 50 && !content.contains(expected); i++) {
+            Thread.sleep(100);
+            content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        }
+        return content;
+    }
+    
+}
@@ -0,0 +1,85 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.EventStream;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.spi.NOPLoggingEventBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class FluentApiTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.fluent.info", "info");
+    }
+    
+    @Test
+    public void keyValuePairs() {
+
+        Logger log = LoggerFactory.getLogger("fluent.info");
+        assertTrue(log instanceof JFRLogger);
+        
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+
+        try (EventStream es = new RecordingStream()) {
+            
+            es.onEvent(e -> {
+                if(e.getEventType().getName().startsWith("log.")) {
+                    System.out.println(e);
+                    events.add(e);
+                    if(e.getEventType().getName().equals("log.Error")) {
+                        es.close();
+                    }
+                }
+            });
+            es.startAsync();
+            
+            assertSame(NOPLoggingEventBuilder.singleton(), log.atDebug());
+
+            log.atInfo().addKeyValue("orderId", 42).addKeyValue("customer", "hans")
+                    .setMessage("order {} placed").addArgument(7).log();
+            log.atWarn().setMessage("full").setCause(new RuntimeException("don't panic"))
+                    .addKeyValue("k0", 0).addKeyValue("k1", 1).addKeyValue("k2", 2)
+                    .addKeyValue("k3", 3).addKeyValue("k4", 4).addKeyValue("k5", 5).log();
+            log.atError().log("done");
+
+            try {
+                es.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        assertEquals(3, events.size());
+        
+        RecordedEvent info = events.get(0);
+        assertEquals("log.Info", info.getEventType().getName());
+        assertEquals("order 7 placed", info.getString("message"));
+        assertEquals("orderId", info.getString("key0"));
+        assertEquals("42", info.getString("value0"));
+        assertEquals("customer", info.getString("key1"));
+        assertEquals("hans", info.getString("value1"));
+        assertNull(info.getString("key2"));
+        
+        RecordedEvent warn = events.get(1);
+        assertEquals("log.Warn", warn.getEventType().getName());
+        assertEquals("full k4=4 k5=5", warn.getString("message"));
+        assertEquals("k3", warn.getString("key3"));
+        assertNotNull(warn.getString("throwable"));
+        
+        assertEquals("done", events.get(2).getString("message"));
+    }
+    
+}
@@ -0,0 +1,66 @@
+package dev.mbien.slf2jfr;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMX;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class JFRLogControlTest {
+    
+    private static JFRLogControlMXBean control;
+    
+    @BeforeAll
+    public static void init() throws Exception {
+        System.setProperty("jfrlog.jmx", "true");
+        System.setProperty("jfrlog.default", "info");
+        System.setProperty("jfrlog.control.pkg", "error");
+        
+        LoggerFactory.getLogger(JFRLogControlTest.class); // bootstrap
+        
+        control = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                new ObjectName(JFRLogControl.OBJECT_NAME), JFRLogControlMXBean.class);
+    }
+    
+    @Test
+    public void relevelExistingLoggers() {
+        
+        Logger foo = LoggerFactory.getLogger("control.pkg.Foo");
+        Logger bar = LoggerFactory.getLogger("control.other.Bar");
+        
+        assertEquals(JFRLogger.LEVEL_ERROR, ((JFRLogger) foo).getLevels());
+        assertEquals(JFRLogger.LEVEL_INFO, ((JFRLogger) bar).getLevels());
+        assertEquals("error", control.getLevel("control.pkg.Foo"));
+        
+        control.setLevel("control.pkg", "DEBUG");
+        assertEquals(JFRLogger.LEVEL_DEBUG, ((JFRLogger) foo).getLevels());
+        assertEquals("debug", control.getLevels().get("control.pkg"));
+        
+        control.setLevel("control", "warn");
+        control.removeLevel("control.pkg");
+        assertEquals(JFRLogger.LEVEL_WARN, ((JFRLogger) foo).getLevels());
+        assertEquals(JFRLogger.LEVEL_WARN, ((JFRLogger) bar).getLevels());
+        
+        control.setDefaultLevel("off");
+        assertEquals("off", control.getDefaultLevel());
+        assertEquals(JFRLogger.LEVEL_OFF, ((JFRLogger) LoggerFactory.getLogger("elsewhere.Baz")).getLevels());
+        assertSame(foo, LoggerFactory.getLogger("control.pkg.Foo"));
+        assertTrue(control.getLoggerCount() >= 3);
+        
+        assertThrows(IllegalArgumentException.class, () -> control.setLevel("control", "verbose"));
+        
+        control.reload();
+        assertEquals("info", control.getDefaultLevel());
+        assertEquals(JFRLogger.LEVEL_ERROR, ((JFRLogger) foo).getLevels());
+        assertEquals(JFRLogger.LEVEL_INFO, ((JFRLogger) bar).getLevels());
+    }
+    
+}
@@ -36,38 +36,38 @@ public class JFRLoggerTest {
         {
             Logger log = LoggerFactory.getLogger("tracelogger");
             assertNotNull(log);
-            assertEquals(JFRLogger.Trace.class.getName(), log.getClass().getName());
+            assertEquals(JFRLogger.LEVEL_TRACE, ((JFRLogger) log).getLevels());
         }
         {
             Logger log = LoggerFactory.getLogger("debuglogger");
             assertNotNull(log);
-            assertEquals(JFRLogger.Debug.class.getName(), log.getClass().getName());
+            assertEquals(JFRLogger.LEVEL_DEBUG, ((JFRLogger) log).getLevels());
         }
         {
             Logger log = LoggerFactory.getLogger("infologger");
             assertNotNull(log);
-            assertEquals(JFRLogger.Info.class.getName(), log.getClass().getName());
+            assertEquals(JFRLogger.LEVEL_INFO, ((JFRLogger) log).getLevels());
         }
         {
             Logger log = LoggerFactory.getLogger("warnlogger");
             assertNotNull(log);
-            assertEquals(JFRLogger.Warn.class.getName(), log.getClass().getName());
+            assertEquals(JFRLogger.LEVEL_WARN, ((JFRLogger) log).getLevels());
         }
         {
             Logger log = LoggerFactory.getLogger("errorlogger");
             assertNotNull(log);
-            assertEquals(JFRLogger.Error.class.getName(), log.getClass().getName());
+            assertEquals(JFRLogger.LEVEL_ERROR, ((JFRLogger) log).getLevels());
         }
         {
             Logger log = LoggerFactory.getLogger("noop");
             assertNotNull(log);
-            assertEquals(JFRLogger.class.getName(), log.getClass().getName());
+            assertEquals(JFRLogger.LEVEL_OFF, ((JFRLogger) log).getLevels());
         }
         
         {
             Logger log = LoggerFactory.getLogger("some.other.logger");
             assertNotNull(log);
-            assertEquals(JFRLogger.Trace.class.getName(), log.getClass().getName());
+            assertEquals(JFRLogger.LEVEL_TRACE, ((JFRLogger) log).getLevels());
         }
         
     }
@@ -78,7 +78,7 @@ public class JFRLoggerTest {
         Logger log = LoggerFactory.getLogger("tracelogger");
         
         assertNotNull(log);
-        assertEquals(JFRLogger.Trace.class.getName(), log.getClass().getName());
+        assertEquals(JFRLogger.LEVEL_TRACE, ((JFRLogger) log).getLevels());
         
         try (EventStream es = new RecordingStream()) {
             
@@ -132,7 +132,7 @@ public class JFRLoggerTest {
 
         Logger log = LoggerFactory.getLogger("errorlogger");
         assertNotNull(log);
-        assertEquals(JFRLogger.Error.class.getName(), log.getClass().getName());
+        assertEquals(JFRLogger.LEVEL_ERROR, ((JFRLogger) log).getLevels());
         
         try (EventStream es = new RecordingStream()) {
             
@@ -166,7 +166,7 @@ public class JFRLoggerTest {
 
         Logger log = LoggerFactory.getLogger("infologger");
         assertNotNull(log);
-        assertEquals(JFRLogger.Info.class.getName(), log.getClass().getName());
+        assertEquals(JFRLogger.LEVEL_INFO, ((JFRLogger) log).getLevels());
         
         try (EventStream es = new RecordingStream()) {
             
@@ -204,7 +204,7 @@ public class JFRLoggerTest {
         Logger log = LoggerFactory.getLogger("infologger");
         
         assertNotNull(log);
-        assertEquals(JFRLogger.Info.class.getName(), log.getClass().getName());
+        assertEquals(JFRLogger.LEVEL_INFO, ((JFRLogger) log).getLevels());
         
         try (EventStream es = new RecordingStream()) {
             
@@ -0,0 +1,54 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class LazyBootstrapTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.lazyBootstrap", "true");
+    }
+    
+    @Test
+    public void registerOnRecordingStart() {
+
+        Logger log = LoggerFactory.getLogger("lazy");
+        
+        assertFalse(log.isErrorEnabled());
+        log.error("not recorded");
+        assertFalse(FlightRecorder.isInitialized());
+        
+        try (RecordingStream rs = new RecordingStream()) {
+            
+            rs.onEvent("log.Info", (e) -> {
+                System.out.println(e);
+                assertEquals("recorded", e.getString("message"));
+                rs.close();
+            });
+            rs.startAsync();
+            
+            assertTrue(log.isInfoEnabled());
+            log.info("recorded");
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+    }
+    
+}
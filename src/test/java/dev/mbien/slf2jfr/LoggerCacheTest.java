@@ -0,0 +1,61 @@
+package dev.mbien.slf2jfr;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class LoggerCacheTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.loggerCacheSize", "-1");
+    }
+    
+    @Test
+    public void hitsAndMisses() {
+        
+        LoggerCache cache = new LoggerCache(16);
+        
+        assertNull(cache.get("foo"));
+        JFRLogger logger = cache.put("foo", new JFRLogger("foo", JFRLogger.LEVEL_TRACE));
+        assertSame(logger, cache.get("foo"));
+        assertSame(logger, cache.put("foo", new JFRLogger("foo", JFRLogger.LEVEL_TRACE)));
+        
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+    }
+    
+    @Test
+    public void bounded() {
+        
+        LoggerCache cache = new LoggerCache(16);
+        List<JFRLogger> loggers = new ArrayList<>();
+        
+        for (int i = 0; i < 100; i++) {
+            String name = "logger" + i;
+            loggers.add(cache.put(name, new JFRLogger(name, JFRLogger.LEVEL_TRACE)));
+            assertTrue(cache.size() <= 16);
+        }
+        
+        assertEquals(84, cache.getEvictions());
+        assertSame(loggers.get(99), cache.get("logger99"));
+    }
+    
+    @Test
+    public void invalidSize() {
+        
+        // the negative size is reported and the default is used
+        assertSame(LoggerFactory.getLogger("invalid.size"), LoggerFactory.getLogger("invalid.size"));
+        assertEquals(1, JFRLoggerFactory.getFactory().getLoggerCacheHits());
+    }
+    
+}
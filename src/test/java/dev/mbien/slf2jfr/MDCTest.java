@@ -0,0 +1,92 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.EventStream;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class MDCTest {
+    
+    @Test
+    public void copyOnWrite() {
+        
+        JFRMDCAdapter mdc = new JFRMDCAdapter();
+        mdc.clear();
+        assertNull(JFRMDCAdapter.getContextString());
+        
+        mdc.put("requestId", "r1");
+        mdc.put("tenant", "t1");
+        String snapshot = JFRMDCAdapter.getContextString();
+        assertEquals("requestId=r1, tenant=t1", snapshot);
+        assertSame(snapshot, JFRMDCAdapter.getContextString());
+        
+        mdc.remove("tenant");
+        assertEquals("requestId=r1", JFRMDCAdapter.getContextString());
+        assertEquals(Collections.singletonMap("requestId", "r1"), mdc.getCopyOfContextMap());
+        
+        mdc.setContextMap(Collections.emptyMap());
+        assertNull(JFRMDCAdapter.getContextString());
+        
+        mdc.pushByKey("stack", "a");
+        mdc.pushByKey("stack", "b");
+        assertEquals("b", mdc.popByKey("stack"));
+        mdc.clear();
+        assertNull(mdc.popByKey("stack"));
+    }
+    
+    @Test
+    public void recordContext() {
+
+        Logger log = LoggerFactory.getLogger("mdc");
+        assertTrue(MDC.getMDCAdapter() instanceof JFRMDCAdapter);
+        
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+
+        try (EventStream es = new RecordingStream()) {
+            
+            es.onEvent(e -> {
+                if(e.getEventType().getName().startsWith("log.")) {
+                    System.out.println(e);
+                    events.add(e);
+                    if(e.getEventType().getName().equals("log.Warn")) {
+                        es.close();
+                    }
+                }
+            });
+            es.startAsync();
+
+            MDC.put("requestId", "r42");
+            log.info("with context");
+            MDC.clear();
+            log.warn("without context");
+
+            try {
+                es.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        assertEquals(2, events.size());
+        
+        assertEquals("log.Info", events.get(0).getEventType().getName());
+        assertEquals("requestId=r42", events.get(0).getString("mdc"));
+        
+        assertEquals("log.Warn", events.get(1).getEventType().getName());
+        assertNull(events.get(1).getString("mdc"));
+    }
+    
+}
@@ -0,0 +1,92 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.EventStream;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class MarkerTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.marker.AUDIT", "info");
+        System.setProperty("jfrlog.marker.CONFIDENTIAL", "off");
+        System.setProperty("jfrlog.markers.off", "off");
+    }
+    
+    @Test
+    public void markerRules() {
+        
+        Marker audit = MarkerFactory.getMarker("AUDIT");
+        Marker confidential = MarkerFactory.getMarker("CONFIDENTIAL");
+        Marker security = MarkerFactory.getDetachedMarker("SECURITY");
+        assertTrue(audit instanceof JFRMarker);
+        
+        Logger off = LoggerFactory.getLogger("markers.off");
+        Logger all = LoggerFactory.getLogger("markers.all");
+        
+        assertEquals(JFRLogger.LEVEL_OFF, JFRMarker.levels(JFRLogger.LEVEL_OFF, security));
+        assertEquals(JFRLogger.LEVEL_INFO, JFRMarker.levels(JFRLogger.LEVEL_OFF, audit));
+        assertEquals(JFRLogger.LEVEL_INFO, JFRMarker.levels(JFRLogger.LEVEL_TRACE, audit));
+        assertEquals(JFRLogger.LEVEL_OFF, JFRMarker.levels(JFRLogger.LEVEL_TRACE, confidential));
+        
+        security.add(audit);
+        assertEquals(JFRLogger.LEVEL_INFO, JFRMarker.levels(JFRLogger.LEVEL_OFF, security));
+        assertEquals("SECURITY [ AUDIT ]", JFRMarker.label(security));
+        security.remove(audit);
+        assertEquals(JFRLogger.LEVEL_OFF, JFRMarker.levels(JFRLogger.LEVEL_OFF, security));
+        
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+
+        try (EventStream es = new RecordingStream()) {
+            
+            es.onEvent(e -> {
+                if(e.getEventType().getName().startsWith("log.")) {
+                    System.out.println(e);
+                    events.add(e);
+                    if(e.getEventType().getName().equals("log.Warn")) {
+                        es.close();
+                    }
+                }
+            });
+            es.startAsync();
+
+            off.info("dropped");
+            off.debug(audit, "dropped");
+            all.error(confidential, "dropped");
+            off.info(audit, "audited");
+            all.warn("done");
+
+            try {
+                es.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        // the dropped events are rejected by logger or marker levels
+        assertEquals(2, events.size());
+        
+        assertEquals("log.Info", events.get(0).getEventType().getName());
+        assertEquals("AUDIT", events.get(0).getString("marker"));
+        assertEquals("audited", events.get(0).getString("message"));
+        
+        assertEquals("log.Warn", events.get(1).getEventType().getName());
+        assertNull(events.get(1).getString("marker"));
+    }
+    
+}
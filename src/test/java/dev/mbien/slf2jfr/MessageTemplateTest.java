@@ -0,0 +1,136 @@
+package dev.mbien.slf2jfr;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+import org.slf4j.helpers.MessageFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class MessageTemplateTest {
+
+    private static final Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+
+    @Test
+    public void slf4jFormat() {
+
+        String[] patterns = {
+            "{}", "a {}", "{} b", "a {} b {} c", "a {} b {} c {} d", "{}{}",
+            "escaped \\{} {}", "double escaped \\\\{} {}", "trailing \\{}",
+            "{} \\{} {}", "no closing {", "{{}}"
+        };
+        Object[][] argSets = {
+            {}, {"x"}, {"x", 42}, {"x", null, 3.5}, {new int[] {1, 2}, "y"},
+            {"x", new RuntimeException("last arg")}, {new RuntimeException("only arg")}
+        };
+
+        for (String pattern : patterns) {
+            MessageTemplate template = MessageTemplate.compile(pattern);
+            for (Object[] args : argSets) {
+                String expected = MessageFormatter.arrayFormat(pattern, args).getMessage();
+                assertEquals(expected, template.format(args), pattern);
+                if (args.length == 1) {
+                    assertEquals(expected, template.format(args[0]), pattern);
+                } else if (args.length == 2) {
+                    assertEquals(expected, template.format(args[0], args[1]), pattern);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void indexedFormat() {
+
+        String[] patterns = {
+            "{0}", "My name is: {0} {1}", "{1} before {0}", "reused {0} {0}",
+            "quoted '{0}' {1}", "it''s {0}", "missing {2}"
+        };
+        Object[][] argSets = {
+            {"hans", "wurst"}, {1234567, 3.14159}, {null, new java.util.Date(0)}, {"x", "y", "z"}
+        };
+
+        for (String pattern : patterns) {
+            MessageTemplate template = MessageTemplate.compile(pattern);
+            for (Object[] args : argSets) {
+                String expected = new MessageFormat(pattern, locale).format(args);
+                assertEquals(expected, template.format(args), pattern);
+            }
+        }
+
+        // used to fall through to String.format
+        assertEquals("hello world", MessageTemplate.compile("hello {0}").format("world"));
+
+        assertEquals(new MessageFormat("{0,number,#.##} {1}", locale).format(new Object[] {1.23456, "x"}),
+                MessageTemplate.compile("{0,number,#.##} {1}").format(1.23456, "x"));
+    }
+
+    @Test
+    public void printfFormat() {
+        assertEquals("My name is: hans wurst", MessageTemplate.compile("My name is: %s %s").format("hans", "wurst"));
+        assertEquals(String.format(locale, "%d items, %.2f", 42, 0.5),
+                MessageTemplate.compile("%d items, %.2f").format(42, 0.5));
+
+        // args don't match -> pattern
+        assertEquals("%d items", MessageTemplate.compile("%d items").format("not a number"));
+        assertEquals("50% done", MessageTemplate.compile("50% done").format("x"));
+
+        String[] patterns = {
+            "%s", "%s and %s", "%2$s before %1$s", "%s %<s again", "%-6s|%5d|", "%x %o %S",
+            "%d%% done%n", "%,d %b %c", "100%% plain", "missing %s %s"
+        };
+        Object[][] argSets = {
+            {"a", 10}, {1234567, 'c'}, {null, true}, {255L, (byte) 8}
+        };
+
+        for (String pattern : patterns) {
+            MessageTemplate template = MessageTemplate.compile(pattern);
+            for (Object[] args : argSets) {
+                String expected;
+                try {
+                    expected = String.format(locale, pattern, args);
+                } catch (RuntimeException ex) {
+                    expected = pattern;
+                }
+                assertEquals(expected, template.format(args), pattern);
+                assertEquals(expected, template.format(args[0], args[1]), pattern);
+            }
+        }
+
+        // invalid patterns are plain text
+        assertEquals("100%q", MessageTemplate.compile("100%q").format(42));
+        assertEquals("%", MessageTemplate.compile("%").format(42));
+    }
+
+    @Test
+    public void plainAndCache() {
+        assertEquals("nothing to format", MessageTemplate.of("nothing to format").format("x", "y"));
+        assertNull(MessageTemplate.of(null).format("x"));
+
+        MessageTemplate template = MessageTemplate.of("cached {}");
+        assertSame(template, MessageTemplate.of("cached {}"));
+
+        // "Aa" and "BB" share the hash code and land in the same cache set
+        MessageTemplate aa = MessageTemplate.of("Aa {}");
+        MessageTemplate bb = MessageTemplate.of("BB {}");
+        assertSame(aa, MessageTemplate.of("Aa {}"));
+        assertSame(bb, MessageTemplate.of("BB {}"));
+    }
+
+    @Test
+    public void reentrantFormat() {
+
+        Object nested = new Object() {
+            @Override
+            public String toString() {
+                return MessageTemplate.of("inner {}").format("value");
+            }
+        };
+
+        assertEquals("outer inner value!", MessageTemplate.of("outer {}!").format(nested));
+    }
+
+}
@@ -0,0 +1,69 @@
+package dev.mbien.slf2jfr;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class NameTrieTest {
+    
+    @Test
+    public void mostSpecificRuleWins() {
+        
+        Map<String, String> rules = new HashMap<>();
+        rules.put("dev.cool.app", "error");
+        rules.put("dev.cool.app.MyKlass", "debug");
+        rules.put("com.foo", "warn");
+        rules.put("tracelogger", "trace");
+        
+        NameTrie<String> trie = new NameTrie<>(rules);
+        
+        assertEquals("error", trie.get("dev.cool.app", "info"));
+        assertEquals("error", trie.get("dev.cool.app.Other", "info"));
+        assertEquals("debug", trie.get("dev.cool.app.MyKlass", "info"));
+        assertEquals("debug", trie.get("dev.cool.app.MyKlass$Inner", "info"));
+        assertEquals("error", trie.get("dev.cool.app.MyKlassic", "info"));
+        assertEquals("info",  trie.get("dev.cool", "info"));
+        assertEquals("warn",  trie.get("com.foo.bar.Baz", "info"));
+        assertEquals("trace", trie.get("tracelogger", "info"));
+        assertEquals("info",  trie.get("", "info"));
+        assertEquals("info",  trie.get("dev.", "info"));
+    }
+    
+    @Test
+    public void segmentBoundaries() {
+        
+        Map<String, String> rules = new HashMap<>();
+        rules.put("com.foo", "warn");
+        
+        NameTrie<String> trie = new NameTrie<>(rules);
+        
+        assertEquals("warn", trie.get("com.foo", "info"));
+        assertEquals("info", trie.get("com.foobar", "info"));
+        assertEquals("info", trie.get("com.fo", "info"));
+        assertEquals("info", trie.get("com", "info"));
+    }
+    
+    @Test
+    public void manyRules() {
+        
+        Map<String, Integer> rules = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            rules.put("com.acme.module" + i, i);
+        }
+        
+        NameTrie<Integer> trie = new NameTrie<>(rules);
+        
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, trie.get("com.acme.module" + i + ".Service", -1));
+        }
+        assertEquals(-1, trie.get("com.acme.module500", -1));
+        assertTrue(new NameTrie<>(new HashMap<>()).isEmpty());
+    }
+    
+}
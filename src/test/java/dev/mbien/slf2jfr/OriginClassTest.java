@@ -0,0 +1,86 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class OriginClassTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.originClass", "true");
+    }
+    
+    @Test
+    public void originClass() {
+
+        Logger byClass = LoggerFactory.getLogger(OriginClassTest.class);
+        Logger byName = LoggerFactory.getLogger("origin.by.name");
+        Logger byClassName = LoggerFactory.getLogger("java.util.ArrayList"); // not the caller
+        
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+
+        try (RecordingStream rs = new RecordingStream()) {
+            
+            rs.onEvent(e -> {
+                if(e.getEventType().getName().startsWith("log.")) {
+                    System.out.println(e);
+                    events.add(e);
+                    if(e.getEventType().getName().equals("log.Warn")) {
+                        rs.close();
+                    }
+                }
+            });
+            rs.startAsync();
+
+            byClass.info("recorded with class");
+            byClassName.info("recorded with loaded class");
+            byName.warn("recorded with name");
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        assertEquals(3, events.size());
+        
+        RecordedEvent info = events.get(0);
+        assertEquals("log.Info", info.getEventType().getName());
+        assertNull(info.getString("origin"));
+        assertEquals(OriginClassTest.class.getName(), info.getClass("originClass").getName());
+        assertEquals(OriginClassTest.class.getName(), JFRLogEvents.getOrigin(info));
+        
+        RecordedEvent loaded = events.get(1);
+        assertNull(loaded.getString("origin"));
+        assertEquals("java.util.ArrayList", loaded.getClass("originClass").getName());
+        
+        RecordedEvent warn = events.get(2);
+        assertEquals("log.Warn", warn.getEventType().getName());
+        assertNull(warn.getClass("originClass"));
+        assertEquals("origin.by.name", warn.getString("origin"));
+        assertEquals("origin.by.name", JFRLogEvents.getOrigin(warn));
+    }
+    
+    @Test
+    public void stackWalkerVersion() {
+        // the tests run against the Java 9+ classes of the multi-release jar
+        assertTrue(Arrays.stream(CallerLocator.class.getDeclaredFields())
+                .anyMatch(f -> f.getType().getName().equals("java.lang.StackWalker")));
+    }
+    
+}
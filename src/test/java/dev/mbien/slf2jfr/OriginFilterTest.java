@@ -0,0 +1,96 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class OriginFilterTest {
+    
+    @Test
+    public void combine() {
+        
+        OriginFilter filter = new OriginFilter();
+        assertEquals("a.b, c", filter.combine(new HashSet<>(Arrays.asList("a.b", " c ,a.b"))));
+        assertEquals("", filter.combine(new HashSet<>(Arrays.asList("a.b", ""))));
+        
+        filter.setValue("com.acme.billing, com.acme.shop");
+        assertTrue(filter.accept("com.acme.billing.Invoice"));
+        assertTrue(filter.accept("com.acme.shop"));
+        assertFalse(filter.accept("com.acme.billingx"));
+        assertFalse(filter.accept("com.acme"));
+        assertTrue(filter.accept(null));
+        
+        filter.setValue("");
+        assertTrue(filter.accept("com.acme"));
+    }
+    
+    @Test
+    public void filterBeforeFormatting() {
+        
+        Logger billing = LoggerFactory.getLogger("origin.billing.Invoice");
+        Logger shop = LoggerFactory.getLogger("origin.shop.Cart");
+        
+        AtomicInteger formatted = new AtomicInteger();
+        Object arg = new Object() {
+            @Override public String toString() {
+                formatted.incrementAndGet();
+                return "arg";
+            }
+        };
+        
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+        
+        try (RecordingStream rs = new RecordingStream()) {
+            
+            rs.enable("log.Debug").with("origin", "origin.billing");
+            rs.enable("log.Warn");
+            
+            rs.onEvent(e -> {
+                if(e.getEventType().getName().startsWith("log.")) {
+                    System.out.println(e);
+                    events.add(e);
+                    if(e.getEventType().getName().equals("log.Warn")) {
+                        rs.close();
+                    }
+                }
+            });
+            rs.startAsync();
+
+            shop.debug("filtered {}", arg);
+            billing.debug("recorded {}", arg);
+            shop.warn("done");
+            
+            assertEquals(1, formatted.get());
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        assertEquals(2, events.size());
+        
+        assertEquals("log.Debug", events.get(0).getEventType().getName());
+        assertEquals("origin.billing.Invoice", events.get(0).getString("origin"));
+        assertEquals("recorded arg", events.get(0).getString("message"));
+        
+        assertEquals("log.Warn", events.get(1).getEventType().getName());
+        assertEquals("origin.shop.Cart", events.get(1).getString("origin"));
+    }
+    
+}
@@ -0,0 +1,130 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class PlatformLoggingTest {
+
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.jul.quiet", "warn");
+        System.setProperty("jfrlog.sys.quiet", "warn");
+        System.setProperty("jfrlog.callerLocation", "info");
+    }
+
+    @Test
+    public void julHandler() {
+
+        JFRLogHandler.install();
+
+        java.util.logging.Logger jul = java.util.logging.Logger.getLogger("jul.Test");
+        java.util.logging.Logger quiet = java.util.logging.Logger.getLogger("jul.quiet.Noisy");
+
+        // disabled levels are rejected before a LogRecord is created
+        assertTrue(jul.isLoggable(Level.FINEST));
+        assertFalse(quiet.isLoggable(Level.INFO));
+        assertTrue(quiet.isLoggable(Level.WARNING));
+
+        List<RecordedEvent> events = record(() -> {
+            jul.log(Level.INFO, "hello {0}", "jul");
+            jul.log(Level.INFO, "value {}", "ignored"); // not a MessageFormat placeholder
+            jul.fine("fine");
+            jul.finer("finer");
+            jul.finest("finest");
+            quiet.info("dropped");
+            quiet.warning("quiet warning");
+            jul.log(Level.SEVERE, "failed", new IllegalStateException("test, please ignore"));
+        });
+
+        assertEquals(7, events.size());
+
+        assertEquals("log.Info", events.get(0).getEventType().getName());
+        assertEquals("hello jul", events.get(0).getString("message"));
+        assertEquals("jul.Test", events.get(0).getString("origin"));
+        assertEquals(PlatformLoggingTest.class.getName(), events.get(0).getString("callerClass"));
+        assertEquals("value {}", events.get(1).getString("message"));
+        assertEquals("log.Debug", events.get(2).getEventType().getName());
+        assertEquals("fine", events.get(2).getString("message"));
+        assertEquals("log.Debug", events.get(3).getEventType().getName());
+        assertEquals("finer", events.get(3).getString("message"));
+        assertEquals("log.Trace", events.get(4).getEventType().getName());
+        assertEquals("log.Warn", events.get(5).getEventType().getName());
+        assertEquals("jul.quiet.Noisy", events.get(5).getString("origin"));
+        assertEquals("failed", events.get(6).getString("message"));
+        assertTrue(events.get(6).getString("throwable").startsWith("java.lang.IllegalStateException: test, please ignore"));
+    }
+
+    @Test
+    public void systemLogger() {
+
+        System.Logger log = System.getLogger("sys.Test");
+        System.Logger quiet = System.getLogger("sys.quiet.Noisy");
+
+        assertTrue(log.getClass().getName().startsWith("dev.mbien.slf2jfr.JFRLoggerFinder"), log.getClass().getName());
+        assertFalse(quiet.isLoggable(System.Logger.Level.INFO));
+
+        List<RecordedEvent> events = record(() -> {
+            // log events are enabled while recording
+            assertTrue(log.isLoggable(System.Logger.Level.TRACE));
+            assertTrue(quiet.isLoggable(System.Logger.Level.WARNING));
+            log.log(System.Logger.Level.INFO, "hello {0}", "system");
+            log.log(System.Logger.Level.INFO, "value {}", "ignored");
+            log.log(System.Logger.Level.DEBUG, () -> "supplied");
+            quiet.log(System.Logger.Level.INFO, "dropped");
+            log.log(System.Logger.Level.ERROR, "failed", new IllegalStateException("test, please ignore"));
+        });
+
+        assertEquals(4, events.size());
+
+        assertEquals("log.Info", events.get(0).getEventType().getName());
+        assertEquals("hello system", events.get(0).getString("message"));
+        assertEquals("sys.Test", events.get(0).getString("origin"));
+        assertEquals(PlatformLoggingTest.class.getName(), events.get(0).getString("callerClass"));
+        assertEquals("value {}", events.get(1).getString("message"));
+        assertEquals("supplied", events.get(2).getString("message"));
+        assertEquals("log.Error", events.get(3).getEventType().getName());
+        assertTrue(events.get(3).getString("throwable").startsWith("java.lang.IllegalStateException: test, please ignore"));
+    }
+
+    // records the log events of the given action, the last one must be an error
+    private static List<RecordedEvent> record(Runnable action) {
+
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+
+        try (RecordingStream rs = new RecordingStream()) {
+
+            rs.onEvent(e -> {
+                if(e.getEventType().getName().startsWith("log.")) {
+                    System.out.println(e);
+                    events.add(e);
+                    if(e.getEventType().getName().equals("log.Error")) {
+                        rs.close();
+                    }
+                }
+            });
+            rs.startAsync();
+
+            action.run();
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        return events;
+    }
+
+}
@@ -0,0 +1,70 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class SamplingTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.sample.debug.sampled", "1/10");
+    }
+    
+    @Test
+    public void sampleDebug() {
+
+        Logger sampled = LoggerFactory.getLogger("sampled.Cache");
+        Logger other = LoggerFactory.getLogger("other.Cache");
+        
+        AtomicInteger sampledCount = new AtomicInteger();
+        AtomicInteger otherCount = new AtomicInteger();
+        
+        try (RecordingStream rs = new RecordingStream()) {
+            
+            rs.onEvent("log.Debug", (e) -> {
+                if(e.getString("origin").equals("sampled.Cache")) {
+                    assertEquals(10, e.getInt("sampleRate"));
+                    sampledCount.incrementAndGet();
+                }else{
+                    assertEquals(0, e.getInt("sampleRate"));
+                    otherCount.incrementAndGet();
+                }
+            });
+            rs.onEvent("log.Error", (e) -> {
+                assertEquals(0, e.getInt("sampleRate"));
+                rs.close();
+            });
+            rs.startAsync();
+
+            for (int i = 0; i < 1000; i++) {
+                sampled.debug("hit {}", i);
+            }
+            for (int i = 0; i < 10; i++) {
+                other.debug("hit {}", i);
+            }
+            sampled.error("done");
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        System.out.println("sampled: " + sampledCount + " of 1000");
+        assertTrue(sampledCount.get() > 40 && sampledCount.get() < 200, sampledCount.toString());
+        assertEquals(10, otherCount.get());
+    }
+    
+}
@@ -0,0 +1,74 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class StatisticsTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.statistics", "true");
+        System.setProperty("jfrlog.stats.quiet", "warn");
+    }
+    
+    @Test
+    public void statistics() {
+
+        Logger log = LoggerFactory.getLogger("stats.Loud");
+        Logger quiet = LoggerFactory.getLogger("stats.quiet.Foo");
+        
+        AtomicLong info = new AtomicLong();
+        AtomicLong error = new AtomicLong();
+        AtomicLong suppressed = new AtomicLong();
+        AtomicLong chars = new AtomicLong();
+        AtomicLong throwableTime = new AtomicLong();
+        
+        try (RecordingStream rs = new RecordingStream()) {
+            
+            rs.enable("log.Statistics").withPeriod(Duration.ofMillis(100));
+            
+            rs.onEvent("log.Statistics", (e) -> {
+                System.out.println(e);
+                info.addAndGet(e.getLong("info"));
+                error.addAndGet(e.getLong("error"));
+                suppressed.addAndGet(e.getLong("suppressed"));
+                chars.addAndGet(e.getLong("messageChars"));
+                throwableTime.addAndGet(e.getDuration("throwableTime").toNanos());
+                if(error.get() == 1) {
+                    rs.close();
+                }
+            });
+            rs.startAsync();
+
+            for (int i = 0; i < 3; i++) {
+                log.info("hello {}", i);  // 3 * 7 chars
+                quiet.info("not recorded");
+            }
+            log.error("oops", new RuntimeException("don't panic"));
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        assertEquals(3, info.get());
+        assertEquals(1, error.get());
+        assertEquals(3, suppressed.get());
+        assertEquals(3 * 7 + 4, chars.get());
+        assertTrue(throwableTime.get() > 0);
+    }
+    
+}
@@ -0,0 +1,100 @@
+package dev.mbien.slf2jfr;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class ThrottleTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.throttle.throttled", "5");
+    }
+    
+    @Test
+    public void burst() {
+        
+        Throttle throttle = new Throttle("burst", 10);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(throttle.tryAcquire());
+        }
+        assertFalse(throttle.tryAcquire());
+        assertEquals(1, throttle.getDropped());
+    }
+    
+    @Test
+    public void serializeThrottledLogger() throws IOException, ClassNotFoundException {
+        
+        Logger throttled = LoggerFactory.getLogger("throttled.Serialized");
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(throttled);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(throttled.getName(), ((Logger) in.readObject()).getName());
+        }
+    }
+    
+    @Test
+    public void reportDropped() {
+        
+        Logger throttled = LoggerFactory.getLogger("throttled.Spammer");
+        Logger other = LoggerFactory.getLogger("unthrottled");
+        
+        List<RecordedEvent> warnings = new CopyOnWriteArrayList<>();
+        List<RecordedEvent> reports = new CopyOnWriteArrayList<>();
+        
+        try (RecordingStream rs = new RecordingStream()) {
+            
+            rs.enable("log.Warn");
+            rs.enable("log.Throttled").withPeriod(Duration.ofMillis(100));
+            
+            rs.onEvent("log.Warn", warnings::add);
+            rs.onEvent("log.Throttled", (e) -> {
+                System.out.println(e);
+                reports.add(e);
+                rs.close();
+            });
+            rs.startAsync();
+
+            for (int i = 0; i < 100; i++) {
+                throttled.warn("spam {}", i);
+            }
+            for (int i = 0; i < 10; i++) {
+                other.warn("not throttled {}", i);
+            }
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+        
+        assertEquals(1, reports.size());
+        RecordedEvent report = reports.get(0);
+        assertEquals("throttled", report.getString("origin"));
+        assertEquals(5, report.getInt("rate"));
+        assertEquals(95, report.getLong("dropped"));
+        assertEquals(5 + 10, warnings.size());
+    }
+    
+}
@@ -0,0 +1,84 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class ThrowableDedupTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.throwableDedup", "true");
+        System.setProperty("jfrlog.maxStackFrames", "2");
+    }
+    
+    @Test
+    public void throwableHash() {
+        
+        Throwable a = new RuntimeException("a");
+        Throwable b = new RuntimeException("b", a);
+        
+        assertEquals(ThrowableCache.hash(a), ThrowableCache.hash(a));
+        assertNotEquals(ThrowableCache.hash(a), ThrowableCache.hash(b));
+        assertNotEquals(ThrowableCache.hash(a), ThrowableCache.hash(new RuntimeException("a")));
+        assertNotEquals(0, ThrowableCache.hash(a));
+    }
+    
+    @Test
+    public void dedupLog() throws InterruptedException {
+
+        Logger log = LoggerFactory.getLogger("dedup");
+        
+        List<RecordedEvent> definitions = new CopyOnWriteArrayList<>();
+        List<RecordedEvent> errors = new CopyOnWriteArrayList<>();
+        
+        try (RecordingStream rs = new RecordingStream()) {
+            
+            rs.enable("log.ThrowableDefinition");
+            
+            rs.onEvent("log.ThrowableDefinition", (e) -> {
+                System.out.println(e);
+                definitions.add(e);
+            });
+            rs.onEvent("log.Error", (e) -> {
+                System.out.println(e);
+                errors.add(e);
+                if(errors.size() == 3) {
+                    rs.close();
+                }
+            });
+            rs.startAsync();
+
+            RuntimeException ex = new RuntimeException("don't panic");
+            for (int i = 0; i < 3; i++) {
+                log.error("oh dear", ex);
+            }
+
+            rs.awaitTermination(Duration.ofSeconds(5));
+        }
+        
+        assertEquals(1, definitions.size());
+        long definedId = definitions.get(0).getLong("throwableId");
+        assertTrue(definitions.get(0).getString("throwable").contains("don't panic"));
+        
+        assertEquals(3, errors.size());
+        for (RecordedEvent error : errors) {
+            assertNull(error.getString("throwable"));
+            assertEquals(definedId, error.getLong("throwableId"));
+            assertTrue(error.getBoolean("truncated")); // the definition is limited to 2 frames
+        }
+    }
+    
+}
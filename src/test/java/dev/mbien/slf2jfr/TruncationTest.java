@@ -0,0 +1,95 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class TruncationTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.maxMessageLength", "20");
+        System.setProperty("jfrlog.maxStackFrames", "2");
+        System.setProperty("jfrlog.maxCauseDepth", "1");
+    }
+    
+    @Test
+    public void truncateMessageAndThrowable() {
+
+        Logger log = LoggerFactory.getLogger("truncation");
+        
+        char[] chars = new char[1000];
+        Arrays.fill(chars, 'x');
+        String large = new String(chars);
+        
+        Exception ex = new IllegalStateException("outer",
+                new IllegalArgumentException("middle", new RuntimeException("inner")));
+        
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+
+        try (RecordingStream rs = new RecordingStream()) {
+            
+            rs.onEvent(e -> {
+                if(e.getEventType().getName().startsWith("log.")) {
+                    System.out.println(e);
+                    events.add(e);
+                    if(e.getEventType().getName().equals("log.Error")) {
+                        rs.close();
+                    }
+                }
+            });
+            rs.startAsync();
+
+            log.info("large: {}", large);
+            log.warn("deep", ex);
+            log.warn("large cause", new RuntimeException(large));
+            log.error("short");
+
+            try {
+                rs.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ie) {
+                fail(ie);
+            }
+        }
+
+        assertEquals(4, events.size());
+
+        RecordedEvent info = events.get(0);
+        assertEquals("large: xxxxxxxxxxxxx", info.getString("message"));
+        assertTrue(info.getBoolean("truncated"));
+
+        RecordedEvent warn = events.get(1);
+        assertEquals("deep", warn.getString("message"));
+        assertTrue(warn.getBoolean("truncated"));
+        String throwable = warn.getString("throwable");
+        assertTrue(throwable.startsWith("java.lang.IllegalStateException: outer\n"));
+        assertTrue(throwable.contains("Caused by: java.lang.IllegalArgumentException: middle"));
+        assertTrue(throwable.contains("Caused by: ... java.lang.RuntimeException (cause depth limit)"));
+        assertFalse(throwable.contains("inner"));
+        assertEquals(2, throwable.split("\n\tat ", -1).length - 1); // maxStackFrames
+
+        RecordedEvent cause = events.get(2);
+        assertEquals("large cause", cause.getString("message"));
+        assertTrue(cause.getBoolean("truncated"));
+        assertTrue(cause.getString("throwable").startsWith("java.lang.RuntimeException: " + large.substring(0, 20) + "\n"));
+
+        RecordedEvent error = events.get(3);
+        assertEquals("short", error.getString("message"));
+        assertFalse(error.getBoolean("truncated"));
+        
+    }
+    
+}
@@ -0,0 +1,86 @@
+package dev.mbien.slf2jfr;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.EventStream;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author mbien
+ */
+public class TypedArgsTest {
+    
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("jfrlog.typedArgs", "true");
+    }
+    
+    @Test
+    public void typedArgs() {
+
+        Logger log = LoggerFactory.getLogger("typed");
+        
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+
+        try (EventStream es = new RecordingStream()) {
+            
+            es.onEvent(e -> {
+                if(e.getEventType().getName().startsWith("log.")) {
+                    System.out.println(e);
+                    events.add(e);
+                    if(e.getEventType().getName().equals("log.Error")) {
+                        es.close();
+                    }
+                }
+            });
+            es.startAsync();
+
+            log.info("took {} ms, ok: {}, ratio: {} of {}", 42L, true, 0.5, "jobs");
+            log.warn("size {} load {}", (short) 7, 0.1f);
+            log.error("failed with {}", -1, new RuntimeException("don't panic"));
+
+            try {
+                es.awaitTermination(Duration.ofSeconds(5));
+            } catch (InterruptedException ex) {
+                fail(ex);
+            }
+        }
+
+        assertEquals(3, events.size());
+
+        RecordedEvent info = events.get(0);
+        assertEquals("log.Info", info.getEventType().getName());
+        assertNull(info.getString("message"));
+        assertEquals("took {} ms, ok: {}, ratio: {} of {}", info.getString("pattern"));
+        assertEquals(42, info.getLong("longArg0"));
+        assertEquals(1, info.getLong("longArg1"));
+        assertEquals(0.5, info.getDouble("doubleArg2"));
+        assertEquals("jobs", info.getString("arg3"));
+        assertNull(info.getString("arg0"));
+        assertArrayEquals(new Object[] {42L, true, 0.5, "jobs"}, JFRLogEvents.getArguments(info));
+        assertEquals("took 42 ms, ok: true, ratio: 0.5 of jobs", JFRLogEvents.getMessage(info));
+
+        RecordedEvent warn = events.get(1);
+        assertEquals("log.Warn", warn.getEventType().getName());
+        assertEquals(7, warn.getLong("longArg0"));
+        assertEquals("size {} load {}", warn.getString("pattern"));
+        assertEquals("size 7 load 0.1", JFRLogEvents.getMessage(warn));
+
+        RecordedEvent error = events.get(2);
+        assertEquals("log.Error", error.getEventType().getName());
+        assertEquals(-1, error.getLong("longArg0"));
+        assertNotNull(error.getString("throwable"));
+        assertEquals("failed with -1", JFRLogEvents.getMessage(error));
+        
+    }
+    
+}